@@ -0,0 +1,333 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import rubiksolverdef.*;
+
+/**
+ * This class solves a whole file of cubes from the command line, without
+ * the GUI. Each line of the input is a scramble, written as moves separated
+ * by spaces, either in this program's notation (Rx1 Fx2 Dx3) or the usual
+ * one (R F2 D'), or a 54 character facelet string, as read by CubeFormat.
+ * A blank line is the solved cube, and anything after a # is ignored.
+ *
+ * The cubes are solved on a pool of worker threads that all share one
+ * SolverEngine, and each solution is written as soon as it can be. Only a
+ * few cubes per worker are ever read ahead of the output, so memory stays
+ * the same however large the input is.
+ *
+ * Usage: java rubiksolver.BatchSolver [options] [input file]
+ *   -threads n   number of worker threads (default: one per processor)
+ *   -unordered   write each solution as soon as it is found, with its line number
+ *   -target n    keep improving each solution until it is at most n moves
+ *   -time ms     time allowed per cube when improving (default 1000)
+ *   -race        race the six orientations of each cube against each other
+ *   -tables dir  directory holding the table files (default: current directory)
+ *   -packed      use the packed pruning tables, which take a quarter of the memory
+ *   -trace       print each depth searched and each better solution to standard error
+ * With no input file, or a file of "-", the cubes are read from standard input.
+ */
+public class BatchSolver {
+    //cubes that may be waiting in the pool or for output, per worker
+    private static final int READ_AHEAD = 4;
+
+    //longest latency the summary keeps exact track of, in milliseconds
+    private static final int MAX_LATENCY_MS = 60000;
+
+    private final SolverEngine engine;
+    private final PrintStream out;
+    private final boolean ordered;
+    private final int targetLength;
+    private final long timeLimit;
+    private final boolean race;
+    private final boolean trace;
+    private final Semaphore window;
+
+    //finished lines waiting for the ones before them (ordered output only)
+    private final HashMap<Long, String> pending;
+    private long nextLine;
+
+    //statistics for the summary
+    private long solved;
+    private long failed;
+    private long totalMoves;
+    private long totalNanos;
+    private long maxNanos;
+    private final long[] latency;
+
+    /**
+     * This constructor creates a batch solver
+     *
+     * @param engine - the engine to solve with
+     * @param out - where to write the solutions
+     * @param threads - the number of worker threads
+     * @param ordered - true to write the solutions in the same order as the input
+     * @param targetLength - a solution this short is good enough, or 0 for the first solution found
+     * @param timeLimit - time allowed per cube when improving, in milliseconds
+     * @param race - true to race the six orientations of each cube
+     * @param trace - true to print the progress of each solve to standard error
+     */
+    public BatchSolver(SolverEngine engine, PrintStream out, int threads, boolean ordered, int targetLength, long timeLimit, boolean race, boolean trace){
+        this.engine = engine;
+        this.out = out;
+        this.ordered = ordered;
+        this.targetLength = targetLength;
+        this.timeLimit = timeLimit;
+        this.race = race;
+        this.trace = trace;
+        this.window = new Semaphore(threads * READ_AHEAD);
+        this.pending = new HashMap<Long, String>();
+        this.nextLine = 1;
+        this.latency = new long[MAX_LATENCY_MS + 1];
+    }
+
+    /**
+     * This reads every cube from the input, solves it on the pool and
+     * writes out the solutions
+     *
+     * @param in - the input, one scramble per line
+     * @param pool - the worker threads
+     * @throws IOException - if the input cannot be read
+     * @throws InterruptedException - if the thread is interrupted while waiting for the workers
+     */
+    public void run(BufferedReader in, ExecutorService pool) throws IOException, InterruptedException{
+        String line;
+        long lineNumber = 0;
+        while((line = in.readLine()) != null){
+            lineNumber++;
+            //wait for room before reading any further ahead
+            window.acquire();
+            final long n = lineNumber;
+            final String text = line;
+            pool.execute(new Runnable(){
+                public void run(){
+                    String result;
+                    long start = System.nanoTime();
+                    Solution solution = null;
+                    try{
+                        CubieCube cc = parseScramble(engine.model, text);
+                        solution = solve(n, cc, start);
+                        result = (solution == null) ? "ERROR cannot solve" : solution.toString();
+                    }catch(IllegalArgumentException e){
+                        result = "ERROR " + e.getMessage();
+                    }catch(Throwable e){
+                        //still write a line, even for an Error, or the ordered output would wait
+                        //for it forever and its place in the read ahead window would never come back
+                        result = "ERROR " + e;
+                    }
+                    record(solution, System.nanoTime() - start);
+                    finish(n, result);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        out.flush();
+    }
+
+    /**
+     * Solves the cube from one line of the input
+     *
+     * @param n - the line number of the input
+     * @param cc - the cube
+     * @param start - when the solve started, from System.nanoTime
+     * @return - the solution, or null if there was none
+     */
+    private Solution solve(final long n, CubieCube cc, long start){
+        SolveListener listener = SolveListener.NONE;
+        if(trace){
+            listener = new SolveAdapter(){
+                public void depthStarted(int phase, int depth){
+                    if(phase == 1){
+                        System.err.println(n + ": searching phase 1 at depth " + depth);
+                    }
+                }
+                public void solutionFound(int[] moves, int length){
+                    System.err.println(n + ": found solution of length " + length);
+                }
+            };
+        }
+        int target = (targetLength <= 0) ? RubikSolver2.MAX_LENGTH : targetLength;
+        long deadline = start + timeLimit * 1000000L;
+        if(race){
+            return engine.solveRace(cc, target, deadline, ForkJoinPool.commonPool(), listener);
+        }
+        return engine.solve(cc, target, deadline, listener);
+    }
+
+    /**
+     * Adds one solve to the statistics
+     *
+     * @param solution - the solution, or null if there was none
+     * @param nanos - how long the solve took
+     */
+    private synchronized void record(Solution solution, long nanos){
+        if(solution == null){
+            failed++;
+            return;
+        }
+        solved++;
+        totalMoves += solution.length();
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        latency[(int)Math.min(nanos / 1000000L, MAX_LATENCY_MS)]++;
+    }
+
+    /**
+     * Writes out the result for one line, or holds onto it until the lines
+     * before it are written
+     *
+     * @param n - the line number of the input
+     * @param result - the line of output
+     */
+    private synchronized void finish(long n, String result){
+        if(!ordered){
+            out.println(n + "\t" + result);
+            out.flush();
+            window.release();
+            return;
+        }
+        pending.put(n, result);
+        while(pending.containsKey(nextLine)){
+            out.println(pending.remove(nextLine));
+            nextLine++;
+            window.release();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the throughput and latency summary
+     *
+     * @param err - where to write it
+     * @param wallNanos - how long the whole run took
+     */
+    public synchronized void summary(PrintStream err, long wallNanos){
+        double seconds = wallNanos / 1e9;
+        err.println("Solved " + solved + " cubes, " + failed + " failed, in " + String.format("%.2f", seconds) + "s");
+        if(solved == 0){
+            return;
+        }
+        err.println("Throughput " + String.format("%.1f", solved / seconds) + " cubes/s");
+        err.println("Average length " + String.format("%.2f", (double)totalMoves / solved) + " moves");
+        err.println("Latency avg " + String.format("%.2f", totalNanos / 1e6 / solved) + "ms"
+                + " p50 " + percentile(0.50) + "ms"
+                + " p90 " + percentile(0.90) + "ms"
+                + " p99 " + percentile(0.99) + "ms"
+                + " max " + String.format("%.2f", maxNanos / 1e6) + "ms");
+    }
+
+    /**
+     * Finds a latency percentile, to the millisecond
+     *
+     * @param p - the fraction of solves
+     * @return - the latency that fraction of solves finished within
+     */
+    private long percentile(double p){
+        long count = (long)Math.ceil(p * solved);
+        long seen = 0;
+        for(int i = 0; i <= MAX_LATENCY_MS; i++){
+            seen += latency[i];
+            if(seen >= count){
+                return i;
+            }
+        }
+        return MAX_LATENCY_MS;
+    }
+
+    /**
+     * This reads the cube on one line, either a scramble applied to a solved
+     * cube or a facelet string
+     *
+     * @param model - the model to use
+     * @param line - the moves, or the 54 facelets
+     * @return - the cube
+     * @throws IllegalArgumentException - if the line is not a cube
+     */
+    public static CubieCube parseScramble(RubikModel2 model, String line){
+        int comment = line.indexOf('#');
+        if(comment >= 0){
+            line = line.substring(0, comment);
+        }
+        line = line.trim();
+        ByteCube cc = new ByteCube();
+        int error;
+        if(line.length() == 54 && line.indexOf(' ') < 0){
+            error = CubeFormat.ParseFacelets(line, cc);
+        }else{
+            error = CubeFormat.ParseScramble(model, line, cc);
+        }
+        if(error != CubeFormat.OK){
+            throw new IllegalArgumentException(CubeFormat.ErrorMessage(error));
+        }
+        return cc.toCubieCube();
+    }
+
+    /**
+     * Runs the batch solver from the command line
+     *
+     * @param args - the options and input file, see the class comment
+     */
+    public static void main(String[] args) throws Exception{
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = true;
+        int target = 0;
+        long time = 1000;
+        boolean race = false;
+        String tables = ".";
+        boolean packed = false;
+        boolean trace = false;
+        String input = "-";
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-threads")){
+                threads = Integer.parseInt(args[++i]);
+            }else if(args[i].equals("-unordered")){
+                ordered = false;
+            }else if(args[i].equals("-target")){
+                target = Integer.parseInt(args[++i]);
+            }else if(args[i].equals("-time")){
+                time = Long.parseLong(args[++i]);
+            }else if(args[i].equals("-race")){
+                race = true;
+            }else if(args[i].equals("-trace")){
+                trace = true;
+            }else if(args[i].equals("-tables")){
+                tables = args[++i];
+            }else if(args[i].equals("-packed")){
+                packed = true;
+            }else{
+                input = args[i];
+            }
+        }
+        //keep the progress of loading the tables off the solutions
+        SolverEngine engine = SolverEngine.load(new File(tables), packed, System.err);
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out), false);
+        BufferedReader in;
+        if(input.equals("-")){
+            in = new BufferedReader(new InputStreamReader(System.in));
+        }else{
+            in = new BufferedReader(new FileReader(input));
+        }
+        BatchSolver batch = new BatchSolver(engine, out, threads, ordered, target, time, race, trace);
+        long start = System.nanoTime();
+        batch.run(in, Executors.newFixedThreadPool(threads));
+        in.close();
+        batch.summary(System.err, System.nanoTime() - start);
+    }
+}
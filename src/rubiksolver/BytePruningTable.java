@@ -0,0 +1,123 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * This class is a pruning table that holds the whole distance of every
+ * cube, one byte each
+ */
+public class BytePruningTable extends WritablePruningTable {
+    //lets the builder's threads set entries without losing any
+    private static final VarHandle DATA = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    //the value of a cube that has not been given a distance yet
+    private static final byte EMPTY = 42;
+
+    private final byte[] data;
+
+    /**
+     * This constructor creates a table with every cube empty
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     */
+    public BytePruningTable(int rows, int cols){
+        super(rows, cols);
+        data = new byte[rows * cols];
+        java.util.Arrays.fill(data, EMPTY);
+    }
+
+    /**
+     * Gets the distance of a cube
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - the distance
+     */
+    public int get(int row, int col){
+        return data[(row * cols) + col];
+    }
+
+    /**
+     * Gets the distance of a cube one move away from a cube whose distance is known
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param neighbor - the distance of the cube one move away (which is not needed)
+     * @return - the distance of the cube
+     */
+    public int depth(int row, int col, int neighbor){
+        return data[(row * cols) + col];
+    }
+
+    /**
+     * @return - true, since the whole distance is stored
+     */
+    public boolean exact(){
+        return true;
+    }
+
+    /**
+     * @return - the number of bytes the table takes up
+     */
+    public long bytes(){
+        return data.length;
+    }
+
+    /**
+     * Checks whether a cube has been given a distance yet
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - true if it has not
+     */
+    boolean isEmpty(int row, int col){
+        return data[(row * cols) + col] == EMPTY;
+    }
+
+    /**
+     * Checks whether a cube may be at the given distance
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if the table holds exactly that distance
+     */
+    boolean matches(int row, int col, int depth){
+        return data[(row * cols) + col] == depth;
+    }
+
+    /**
+     * Stores the distance of a cube, unless it already has one
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if this call stored the distance
+     */
+    boolean trySet(int row, int col, int depth){
+        return DATA.compareAndSet(data, (row * cols) + col, EMPTY, (byte)depth);
+    }
+
+    /**
+     * Adds the table to a table file that is about to be written
+     *
+     * @param file - the file
+     * @param name - the name of its section
+     */
+    void addTo(TableFile file, String name){
+        file.add(name, rows, cols, data);
+    }
+}
@@ -0,0 +1,404 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import rubiksolverdef.*;
+import rubiksolver.RubikModel2.*;
+
+/**
+ * This class reads and writes cubes as text, without the GUI. A cube is
+ * either a facelet string or a move sequence.
+ *
+ * A facelet string is the 54 facelets in the order of the Face enum: the
+ * U face, then R, F, D, L and B, each read row by row. Each facelet is the
+ * character of its colour, and the colours are named by the centers, so
+ * "UUUUUUUUURRRRRRRRRFFFFFFFFFDDDDDDDDDLLLLLLLLLBBBBBBBBB" and any other
+ * six characters in the same pattern are the solved cube.
+ *
+ * A move sequence is in Singmaster notation: a face letter, followed by
+ * nothing for a clockwise quarter turn, 2 for a half turn, or ' (or 3) for
+ * a counter clockwise quarter turn, as in "R U2 F'". The spaces are
+ * optional, and this program's own move names (Rx1 Ux2 Fx3) are read too.
+ *
+ * Nothing here throws on bad input. The parsers return one of the error
+ * codes below, and ErrorMessage describes it. No object is made per
+ * facelet or move, so millions of cubes a second can be read on one core.
+ */
+public class CubeFormat {
+    public static final int OK = 0;
+    public static final int BAD_LENGTH = -1; //not 54 facelets
+    public static final int BAD_CENTERS = -2; //two centers the same colour
+    public static final int BAD_COLOR = -3; //a facelet that is no center's colour
+    public static final int BAD_COUNT = -4; //a colour not on exactly 9 facelets
+    public static final int BAD_CORNER = -5; //colours that are no corner, or a corner twice
+    public static final int BAD_EDGE = -6; //colours that are no edge, or an edge twice
+    public static final int TWIST = -7; //the corner orientations do not add up
+    public static final int FLIP = -8; //the edge orientations do not add up
+    public static final int PARITY = -9; //the corner and edge permutations are not both odd or both even
+    public static final int BAD_MOVE = -10; //something that is not a move
+
+    //the letters of the faces, in the order of TurnAxis
+    private static final String FACES = "URFDLB";
+    private static final byte[] FACE_CHARS = FACES.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    //the axis of each face letter, plus 1 so 0 is no face
+    private static final byte[] AXIS = new byte[128];
+
+    //the facelets of each corner and edge position, as in RubikModel2.CF and EF
+    private static final int[][] CORNER_FACELET = {
+        {Face.U9.ordinal(), Face.R1.ordinal(), Face.F3.ordinal()},
+        {Face.U7.ordinal(), Face.F1.ordinal(), Face.L3.ordinal()},
+        {Face.U1.ordinal(), Face.L1.ordinal(), Face.B3.ordinal()},
+        {Face.U3.ordinal(), Face.B1.ordinal(), Face.R3.ordinal()},
+        {Face.D3.ordinal(), Face.F9.ordinal(), Face.R7.ordinal()},
+        {Face.D1.ordinal(), Face.L9.ordinal(), Face.F7.ordinal()},
+        {Face.D7.ordinal(), Face.B9.ordinal(), Face.L7.ordinal()},
+        {Face.D9.ordinal(), Face.R9.ordinal(), Face.B7.ordinal()}};
+    private static final int[][] EDGE_FACELET = {
+        {Face.U6.ordinal(), Face.R2.ordinal()}, {Face.U8.ordinal(), Face.F2.ordinal()},
+        {Face.U4.ordinal(), Face.L2.ordinal()}, {Face.U2.ordinal(), Face.B2.ordinal()},
+        {Face.D6.ordinal(), Face.R8.ordinal()}, {Face.D2.ordinal(), Face.F8.ordinal()},
+        {Face.D4.ordinal(), Face.L8.ordinal()}, {Face.D8.ordinal(), Face.B8.ordinal()},
+        {Face.F6.ordinal(), Face.R4.ordinal()}, {Face.F4.ordinal(), Face.L6.ordinal()},
+        {Face.B6.ordinal(), Face.L4.ordinal()}, {Face.B4.ordinal(), Face.R6.ordinal()}};
+
+    //the corner with colours (a, b) after its U or D colour is at entry (a * 6) + b,
+    //and the edge with colours (a, b) is at entry (a * 6) + b, as edge * 2 + orientation.
+    //Entries that are no cubie are -1
+    private static final byte[] CORNER_BY_COLORS = new byte[36];
+    private static final byte[] EDGE_BY_COLORS = new byte[36];
+
+    static{
+        for(int f = 0; f < 6; f++){
+            AXIS[FACES.charAt(f)] = (byte)(f + 1);
+        }
+        java.util.Arrays.fill(CORNER_BY_COLORS, (byte)-1);
+        java.util.Arrays.fill(EDGE_BY_COLORS, (byte)-1);
+        //each cubie's colours are the faces of its own facelets on the solved cube
+        for(int j = 0; j < 8; j++){
+            CORNER_BY_COLORS[(Color(CORNER_FACELET[j][1]) * 6) + Color(CORNER_FACELET[j][2])] = (byte)j;
+        }
+        for(int j = 0; j < 12; j++){
+            int a = Color(EDGE_FACELET[j][0]);
+            int b = Color(EDGE_FACELET[j][1]);
+            EDGE_BY_COLORS[(a * 6) + b] = (byte)(j * 2);
+            EDGE_BY_COLORS[(b * 6) + a] = (byte)((j * 2) + 1);
+        }
+    }
+
+    /**
+     * @param facelet - a facelet
+     * @return - the colour of the facelet on the solved cube, which is its face
+     */
+    private static int Color(int facelet){
+        return facelet / 9;
+    }
+
+    /**
+     * This reads a facelet string into a cube
+     *
+     * @param s - the facelets
+     * @param result - where the cube goes, which is only all there if OK is returned
+     * @return - OK, or the error code
+     */
+    public static int ParseFacelets(CharSequence s, ByteCube result){
+        if(s.length() != 54){
+            return BAD_LENGTH;
+        }
+        //the colour of each character, plus 1 so 0 is no colour
+        byte[] map = new byte[128];
+        for(int f = 0; f < 6; f++){
+            char ch = s.charAt((f * 9) + 4);
+            if(ch >= 128){
+                return BAD_COLOR;
+            }
+            if(map[ch] != 0){
+                return BAD_CENTERS;
+            }
+            map[ch] = (byte)(f + 1);
+        }
+        byte[] colors = new byte[54];
+        for(int i = 0; i < 54; i++){
+            char ch = s.charAt(i);
+            if(ch >= 128 || map[ch] == 0){
+                return BAD_COLOR;
+            }
+            colors[i] = (byte)(map[ch] - 1);
+        }
+        return ParseColors(colors, result);
+    }
+
+    /**
+     * This reads a facelet string of ASCII bytes into a cube, so a batch
+     * can be read straight from a file without making a String per cube
+     *
+     * @param buf - the bytes
+     * @param offset - where the 54 facelets start
+     * @param result - where the cube goes, which is only all there if OK is returned
+     * @return - OK, or the error code
+     */
+    public static int ParseFacelets(byte[] buf, int offset, ByteCube result){
+        if(offset < 0 || buf.length - offset < 54){
+            return BAD_LENGTH;
+        }
+        //the colour of each byte, plus 1 so 0 is no colour
+        byte[] map = new byte[256];
+        for(int f = 0; f < 6; f++){
+            int ch = buf[offset + (f * 9) + 4] & 0xff;
+            if(map[ch] != 0){
+                return BAD_CENTERS;
+            }
+            map[ch] = (byte)(f + 1);
+        }
+        byte[] colors = new byte[54];
+        for(int i = 0; i < 54; i++){
+            int color = map[buf[offset + i] & 0xff];
+            if(color == 0){
+                return BAD_COLOR;
+            }
+            colors[i] = (byte)(color - 1);
+        }
+        return ParseColors(colors, result);
+    }
+
+    /**
+     * This works out the cubies from the colour of every facelet, and
+     * checks that they make a cube that can be solved
+     *
+     * @param colors - the colour of each facelet, 0 to 5 in the order of TurnAxis
+     * @param result - where the cube goes, which is only all there if OK is returned
+     * @return - OK, or the error code
+     */
+    private static int ParseColors(byte[] colors, ByteCube result){
+        int[] count = new int[6];
+        for(int i = 0; i < 54; i++){
+            count[colors[i]]++;
+        }
+        for(int f = 0; f < 6; f++){
+            if(count[f] != 9){
+                return BAD_COUNT;
+            }
+        }
+
+        int seen = 0;
+        int twist = 0;
+        for(int i = 0; i < 8; i++){
+            int[] facelet = CORNER_FACELET[i];
+            //the orientation is which facelet holds the U or D colour
+            int ori = 0;
+            while(ori < 3 && colors[facelet[ori]] != TurnAxis.U.ordinal() && colors[facelet[ori]] != TurnAxis.D.ordinal()){
+                ori++;
+            }
+            if(ori == 3){
+                return BAD_CORNER;
+            }
+            int j = CORNER_BY_COLORS[(colors[facelet[(ori + 1) % 3]] * 6) + colors[facelet[(ori + 2) % 3]]];
+            if(j < 0 || (seen & (1 << j)) != 0){
+                return BAD_CORNER;
+            }
+            seen |= 1 << j;
+            result.cp[i] = (byte)j;
+            result.co[i] = (byte)ori;
+            twist += ori;
+        }
+
+        seen = 0;
+        int flip = 0;
+        for(int i = 0; i < 12; i++){
+            int e = EDGE_BY_COLORS[(colors[EDGE_FACELET[i][0]] * 6) + colors[EDGE_FACELET[i][1]]];
+            if(e < 0 || (seen & (1 << (e >> 1))) != 0){
+                return BAD_EDGE;
+            }
+            seen |= 1 << (e >> 1);
+            result.ep[i] = (byte)(e >> 1);
+            result.eo[i] = (byte)(e & 1);
+            flip += e & 1;
+        }
+
+        if(twist % 3 != 0){
+            return TWIST;
+        }
+        if(flip % 2 != 0){
+            return FLIP;
+        }
+        if(Parity(result.cp) != Parity(result.ep)){
+            return PARITY;
+        }
+        return OK;
+    }
+
+    /**
+     * @param perm - a permutation
+     * @return - 1 if it is odd, and 0 if it is even
+     */
+    private static int Parity(byte[] perm){
+        //count the pairs out of order, as the permutation coordinates do
+        int s = 0;
+        int seen = 0;
+        for(int i = 0; i < perm.length; i++){
+            s += Integer.bitCount(seen >>> (perm[i] + 1));
+            seen |= 1 << perm[i];
+        }
+        return s & 1;
+    }
+
+    /**
+     * This writes a cube as a facelet string
+     *
+     * @param cc - the cube, which must not be a symmetry
+     * @return - the 54 facelets
+     */
+    public static String ToFacelets(ByteCube cc){
+        byte[] buf = new byte[54];
+        WriteFacelets(cc, buf, 0);
+        return new String(buf, java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This writes a cube as a facelet string of ASCII bytes
+     *
+     * @param cc - the cube, which must not be a symmetry
+     * @param buf - where to write the facelets
+     * @param offset - where the 54 facelets start
+     */
+    public static void WriteFacelets(ByteCube cc, byte[] buf, int offset){
+        for(int f = 0; f < 6; f++){
+            buf[offset + (f * 9) + 4] = FACE_CHARS[f];
+        }
+        for(int i = 0; i < 8; i++){
+            int[] from = CORNER_FACELET[cc.cp[i]];
+            for(int n = 0; n < 3; n++){
+                buf[offset + CORNER_FACELET[i][(n + cc.co[i]) % 3]] = FACE_CHARS[Color(from[n])];
+            }
+        }
+        for(int i = 0; i < 12; i++){
+            int[] from = EDGE_FACELET[cc.ep[i]];
+            for(int n = 0; n < 2; n++){
+                buf[offset + EDGE_FACELET[i][(n + cc.eo[i]) % 2]] = FACE_CHARS[Color(from[n])];
+            }
+        }
+    }
+
+    /**
+     * This reads a move sequence into move indexes
+     *
+     * @param s - the moves
+     * @param moves - where the move indexes go, 3 * axis + quarter turns - 1
+     * @return - the number of moves, or BAD_MOVE if there are more than fit or
+     *           something is not a move
+     */
+    public static int ParseMoves(CharSequence s, int[] moves){
+        int n = 0;
+        int length = s.length();
+        int i = 0;
+        while(i < length){
+            char ch = s.charAt(i++);
+            if(ch == ' ' || ch == '\t' || ch == ','){
+                continue;
+            }
+            int axis = (ch < 128) ? AXIS[ch] - 1 : -1;
+            if(axis < 0 || n == moves.length){
+                return BAD_MOVE;
+            }
+            int turns = 0;
+            if(i < length){
+                char next = s.charAt(i);
+                if(next == 'x' && i + 1 < length){
+                    //one of this program's own move names
+                    next = s.charAt(i + 1);
+                    if(next < '1' || next > '3'){
+                        return BAD_MOVE;
+                    }
+                    turns = next - '1';
+                    i += 2;
+                }else if(next == '2'){
+                    turns = 1;
+                    i++;
+                }else if(next == '\'' || next == '3'){
+                    turns = 2;
+                    i++;
+                }
+            }
+            moves[n++] = (3 * axis) + turns;
+        }
+        return n;
+    }
+
+    /**
+     * This applies a move sequence to a solved cube
+     *
+     * @param model - the model to move the cube with
+     * @param s - the moves
+     * @param result - where the cube goes, which is only all there if OK is returned
+     * @return - OK or BAD_MOVE
+     */
+    public static int ParseScramble(RubikModel2 model, CharSequence s, ByteCube result){
+        int[] moves = new int[s.length()];
+        int n = ParseMoves(s, moves);
+        if(n < 0){
+            return n;
+        }
+        ByteCube cc = new ByteCube();
+        ByteCube next = new ByteCube();
+        for(int i = 0; i < n; i++){
+            model.DoMove(cc, moves[i], next);
+            ByteCube temp = cc;
+            cc = next;
+            next = temp;
+        }
+        result.set(cc);
+        return OK;
+    }
+
+    /**
+     * This writes move indexes in Singmaster notation
+     *
+     * @param moves - the move indexes
+     * @param count - how many of them to write
+     * @return - the moves, separated by spaces
+     */
+    public static String ToMoves(int[] moves, int count){
+        StringBuilder out = new StringBuilder(count * 3);
+        for(int i = 0; i < count; i++){
+            if(i > 0){
+                out.append(' ');
+            }
+            out.append(FACES.charAt(moves[i] / 3));
+            if(moves[i] % 3 == 1){
+                out.append('2');
+            }else if(moves[i] % 3 == 2){
+                out.append('\'');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param code - an error code from one of the parsers
+     * @return - what it means
+     */
+    public static String ErrorMessage(int code){
+        switch(code){
+            case OK: return "ok";
+            case BAD_LENGTH: return "not 54 facelets";
+            case BAD_CENTERS: return "two centers are the same colour";
+            case BAD_COLOR: return "a facelet is not the colour of any center";
+            case BAD_COUNT: return "a colour is not on exactly 9 facelets";
+            case BAD_CORNER: return "a corner is missing or there twice";
+            case BAD_EDGE: return "an edge is missing or there twice";
+            case TWIST: return "a corner is twisted";
+            case FLIP: return "an edge is flipped";
+            case PARITY: return "two cubies are swapped";
+            case BAD_MOVE: return "not a move";
+            default: return "unknown error " + code;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import rubiksolverdef.*;
+import rubiksolver.RubikModel2.*;
+
+/**
+ * This class solves cubes with only the raw move tables, for use while the
+ * big pruning tables are still being loaded or built.
+ *
+ * It is the two phase algorithm the way Kociemba first wrote it. Instead
+ * of one pruning table over a sym coordinate, each phase has two small
+ * ones over pairs of raw coordinates, and the lower bound is the larger of
+ * the two. They take about 4MB and under a second to build. The bounds
+ * are weaker, so the search visits many more cubes, and phase 2 is only
+ * allowed 10 moves so that it gives up quickly on a poor phase 1 solution.
+ * Most cubes are still solved in tens of milliseconds.
+ */
+public class DegradedSolver {
+    //longest phase 1 solution the search will look for
+    private static final int MAX_PHASE1_DEPTH = 20;
+
+    //longest phase 2 solution tried after each phase 1 solution
+    private static final int MAX_PHASE2_DEPTH = 10;
+
+    private final RubikModel2 model;
+    private final TwistMoveTable table;
+
+    //phase 1: distance by UDSlice and Corner Orientation, and by UDSlice and Edge Orientation
+    private final byte[] sliceTwist;
+    private final byte[] sliceFlip;
+    //phase 2: distance by UDSlice Sorted and Corner Permutation, and by UDSlice Sorted and Edge Permutation
+    private final byte[] sliceCornPerm;
+    private final byte[] sliceEdgePerm;
+
+    /**
+     * This constructor builds the small pruning tables from the move tables
+     *
+     * @param model - the model to use
+     * @param table - the move tables to use
+     */
+    public DegradedSolver(RubikModel2 model, TwistMoveTable table){
+        this.model = model;
+        this.table = table;
+        int[] allMoves = new int[18];
+        for(int m = 0; m < 18; m++){
+            allMoves[m] = m;
+        }
+        sliceTwist = Build(table.UDSliceTwistMove, 495, table.CornOriTwistMove, 2187, allMoves);
+        sliceFlip = Build(table.UDSliceTwistMove, 495, table.EdgeOriTwistMove, 2048, allMoves);
+        sliceCornPerm = Build(table.P2UDSliceTwistMove, 24, table.P2CornPermRawTwistMove, 40320, RubikSolver2.PHASE2_MOVES);
+        sliceEdgePerm = Build(table.P2UDSliceTwistMove, 24, table.P2EdgePermTwistMove, 40320, RubikSolver2.PHASE2_MOVES);
+    }
+
+    /**
+     * This fills in a pruning table over two raw coordinates with a
+     * breadth first search from the solved cube, where both are 0
+     *
+     * @param sliceMove - the move table of the slice coordinate
+     * @param slices - the number of slice coordinates
+     * @param coordMove - the move table of the other coordinate
+     * @param coords - the number of other coordinates
+     * @param moves - the moves allowed
+     * @return - the distance of each slice * coords + coord
+     */
+    private static byte[] Build(char[] sliceMove, int slices, char[] coordMove, int coords, int[] moves){
+        byte[] dist = new byte[slices * coords];
+        java.util.Arrays.fill(dist, (byte)-1);
+        dist[0] = 0;
+        int done = 1;
+        for(int depth = 0; done < dist.length; depth++){
+            int found = 0;
+            for(int i = 0; i < dist.length; i++){
+                if(dist[i] != depth){
+                    continue;
+                }
+                int slice = (int)(i / coords);
+                int coord = i % coords;
+                for(int m : moves){
+                    int next = (sliceMove[(slice * TwistMoveTable.MOVES) + m] * coords) + coordMove[(coord * TwistMoveTable.MOVES) + m];
+                    if(dist[next] < 0){
+                        dist[next] = (byte)(depth + 1);
+                        found++;
+                    }
+                }
+            }
+            if(found == 0){
+                break;
+            }
+            done += found;
+        }
+        return dist;
+    }
+
+    /**
+     * This finds a solution, stopping at the first one
+     *
+     * @param cc - the cube to solve
+     * @return - the solution, or null if none was found
+     */
+    public Solution solve(CubieCube cc){
+        long start = System.nanoTime();
+        Search search = new Search(cc);
+        for(int depth = 0; depth <= MAX_PHASE1_DEPTH; depth++){
+            if(search.phase1(0, depth, model.CornOriCoord(cc.c), model.EdgeOriCoord(cc.e), model.UDSliceCoord(cc))){
+                int[] moves = new int[search.length1 + search.length2];
+                System.arraycopy(search.moves, 0, moves, 0, moves.length);
+                return new Solution(moves, search.length1, search.nodes, System.nanoTime() - start, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This class holds the state of one solve
+     */
+    private class Search {
+        private final CubieCube cube;
+        private final int[] moves;
+        private int length1;
+        private int length2;
+        private long nodes;
+
+        /**
+         * This constructor starts a search
+         *
+         * @param cube - the cube to solve
+         */
+        Search(CubieCube cube){
+            this.cube = cube;
+            this.moves = new int[MAX_PHASE1_DEPTH + MAX_PHASE2_DEPTH];
+        }
+
+        /**
+         * Searches every phase 1 solution of the given length, and tries to
+         * finish each one with phase 2
+         *
+         * @param n - the number of moves made so far
+         * @param depth - the length of the phase 1 solutions to look for
+         * @param twist - the Corner Orientation Coordinate
+         * @param flip - the Edge Orientation Coordinate
+         * @param slice - the UDSlice Coordinate
+         * @return - true once a solution is found
+         */
+        boolean phase1(int n, int depth, int twist, int flip, int slice){
+            nodes++;
+            int bound = Math.max(sliceTwist[(slice * 2187) + twist], sliceFlip[(slice * 2048) + flip]);
+            if(bound > depth - n){
+                return false;
+            }
+            if(n == depth){
+                //a phase 1 solution may not end in a phase 2 move, since a shorter one would exist
+                if(n > 0 && RubikSolver2.IsPhase2Move(moves[n - 1])){
+                    return false;
+                }
+                return startPhase2(depth);
+            }
+            for(int m = 0; m < 18; m++){
+                if(n > 0 && RubikSolver2.Redundant(moves[n - 1], m)){
+                    continue;
+                }
+                moves[n] = m;
+                if(phase1(n + 1, depth, table.CornOriTwistMove[(twist * TwistMoveTable.MOVES) + m],
+                        table.EdgeOriTwistMove[(flip * TwistMoveTable.MOVES) + m],
+                        table.UDSliceTwistMove[(slice * TwistMoveTable.MOVES) + m])){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Applies a phase 1 solution to the cube and looks for a phase 2
+         * solution of the cube it gives
+         *
+         * @param depth - the length of the phase 1 solution
+         * @return - true if phase 2 found a solution
+         */
+        private boolean startPhase2(int depth){
+            CubieCube tempCube = cube;
+            for(int i = 0; i < depth; i++){
+                for(int j = 0; j < (moves[i] % 3) + 1; j++){
+                    tempCube = model.DoMove(tempCube, TurnAxis.values()[(int)(moves[i] / 3)]);
+                }
+            }
+            int corn = model.CornPermCoord(tempCube.c);
+            int edge = model.Phase2EdgePermCoord(tempCube);
+            int slice = model.UDSliceSortedCoord(tempCube);
+            for(int depth2 = 0; depth2 <= MAX_PHASE2_DEPTH; depth2++){
+                if(phase2(depth, 0, depth2, corn, edge, slice)){
+                    length1 = depth;
+                    length2 = depth2;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Searches every phase 2 solution of the given length
+         *
+         * @param base - the length of the phase 1 solution
+         * @param n - the number of phase 2 moves made so far
+         * @param depth - the length of the phase 2 solutions to look for
+         * @param corn - the Corner Permutation Coordinate
+         * @param edge - the Phase 2 Edge Permutation Coordinate
+         * @param slice - the UDSlice Sorted Coordinate
+         * @return - true once a solution is found
+         */
+        private boolean phase2(int base, int n, int depth, int corn, int edge, int slice){
+            int bound = Math.max(sliceCornPerm[(slice * 40320) + corn], sliceEdgePerm[(slice * 40320) + edge]);
+            if(bound > depth - n){
+                return false;
+            }
+            if(n == depth){
+                return true;
+            }
+            for(int m : RubikSolver2.PHASE2_MOVES){
+                if(base + n > 0 && RubikSolver2.Redundant(moves[base + n - 1], m)){
+                    continue;
+                }
+                moves[base + n] = m;
+                if(phase2(base, n + 1, depth, table.P2CornPermRawTwistMove[(corn * TwistMoveTable.MOVES) + m],
+                        table.P2EdgePermTwistMove[(edge * TwistMoveTable.MOVES) + m],
+                        table.P2UDSliceTwistMove[(slice * TwistMoveTable.MOVES) + m])){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
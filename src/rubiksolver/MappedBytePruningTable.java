@@ -0,0 +1,74 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class is a BytePruningTable that is read straight from a mapped
+ * table file instead of being copied onto the heap. It can only be read.
+ */
+public class MappedBytePruningTable extends PruningTable {
+    private final ByteBuffer data;
+
+    /**
+     * This constructor creates a table from a section of a mapped file
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     * @param data - one byte for each cube
+     */
+    public MappedBytePruningTable(int rows, int cols, ByteBuffer data){
+        super(rows, cols);
+        if(data.capacity() != rows * cols){
+            throw new IllegalArgumentException("table of " + rows + " x " + cols + " does not fit " + data.capacity() + " bytes");
+        }
+        this.data = data;
+    }
+
+    /**
+     * Gets the distance of a cube
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - the distance
+     */
+    public int get(int row, int col){
+        return data.get((row * cols) + col);
+    }
+
+    /**
+     * Gets the distance of a cube one move away from a cube whose distance is known
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param neighbor - the distance of the cube one move away (which is not needed)
+     * @return - the distance of the cube
+     */
+    public int depth(int row, int col, int neighbor){
+        return data.get((row * cols) + col);
+    }
+
+    /**
+     * @return - true, since the whole distance is stored
+     */
+    public boolean exact(){
+        return true;
+    }
+
+    /**
+     * @return - the number of bytes the table takes up, none of which are on the heap
+     */
+    public long bytes(){
+        return data.capacity();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.nio.IntBuffer;
+
+/**
+ * This class is a PackedPruningTable that is read straight from a mapped
+ * table file instead of being copied onto the heap. It can only be read.
+ */
+public class MappedPackedPruningTable extends PruningTable {
+    //16 entries per int, lowest bits first
+    private final IntBuffer data;
+
+    /**
+     * This constructor creates a table from a section of a mapped file
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     * @param data - 2 bits for each cube
+     */
+    public MappedPackedPruningTable(int rows, int cols, IntBuffer data){
+        super(rows, cols);
+        if(data.capacity() != (int)(((long)rows * cols + 15) / 16)){
+            throw new IllegalArgumentException("table of " + rows + " x " + cols + " does not fit " + data.capacity() + " ints");
+        }
+        this.data = data;
+    }
+
+    /**
+     * Gets the distance of a cube mod 3
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - the distance mod 3
+     */
+    public int get(int row, int col){
+        int i = (row * cols) + col;
+        return (data.get(i >>> 4) >>> ((i & 15) << 1)) & 3;
+    }
+
+    /**
+     * Gets the distance of a cube one move away from a cube whose distance is known
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param neighbor - the distance of the cube one move away
+     * @return - the distance of the cube
+     */
+    public int depth(int row, int col, int neighbor){
+        return PackedPruningTable.resolve(get(row, col), neighbor);
+    }
+
+    /**
+     * @return - false, since only the distance mod 3 is stored
+     */
+    public boolean exact(){
+        return false;
+    }
+
+    /**
+     * @return - the number of bytes the table takes up, none of which are on the heap
+     */
+    public long bytes(){
+        return 4L * data.capacity();
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * This class is a pruning table that only holds each distance mod 3, in
+ * 2 bits, so it is a quarter the size of a BytePruningTable. That is
+ * enough because a move changes the distance by -1, 0 or 1, and those
+ * three give different values mod 3. The fourth value marks a cube that
+ * has not been given a distance yet.
+ *
+ * See http://kociemba.org/math/pruning.htm for more info
+ */
+public class PackedPruningTable extends WritablePruningTable {
+    //lets the builder's threads set entries without losing any
+    private static final VarHandle DATA = MethodHandles.arrayElementVarHandle(int[].class);
+
+    //the value of a cube that has not been given a distance yet
+    private static final int EMPTY = 3;
+
+    //16 entries per int, lowest bits first
+    private final int[] data;
+
+    /**
+     * This constructor creates a table with every cube empty
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     */
+    public PackedPruningTable(int rows, int cols){
+        super(rows, cols);
+        data = new int[(int)(((long)rows * cols + 15) / 16)];
+        java.util.Arrays.fill(data, -1);
+    }
+
+    /**
+     * Gets the distance of a cube mod 3
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - the distance mod 3, or 3 if it is empty
+     */
+    public int get(int row, int col){
+        int i = (row * cols) + col;
+        return (data[i >>> 4] >>> ((i & 15) << 1)) & 3;
+    }
+
+    /**
+     * Gets the distance of a cube one move away from a cube whose distance is known
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param neighbor - the distance of the cube one move away
+     * @return - the distance of the cube
+     */
+    public int depth(int row, int col, int neighbor){
+        return resolve(get(row, col), neighbor);
+    }
+
+    /**
+     * Works out a distance from the distance mod 3 and the distance of a
+     * cube one move away
+     *
+     * @param stored - the distance mod 3
+     * @param neighbor - the distance of the cube one move away
+     * @return - the distance
+     */
+    static int resolve(int stored, int neighbor){
+        int diff = stored - (neighbor % 3);
+        //the distance is one of neighbor - 1, neighbor and neighbor + 1
+        if(diff == 2){
+            diff = -1;
+        }else if(diff == -2){
+            diff = 1;
+        }
+        return neighbor + diff;
+    }
+
+    /**
+     * @return - false, since only the distance mod 3 is stored
+     */
+    public boolean exact(){
+        return false;
+    }
+
+    /**
+     * @return - the number of bytes the table takes up
+     */
+    public long bytes(){
+        return 4L * data.length;
+    }
+
+    /**
+     * Checks whether a cube has been given a distance yet
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - true if it has not
+     */
+    boolean isEmpty(int row, int col){
+        return get(row, col) == EMPTY;
+    }
+
+    /**
+     * Checks whether a cube may be at the given distance
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if the table holds that distance mod 3
+     */
+    boolean matches(int row, int col, int depth){
+        return get(row, col) == depth % 3;
+    }
+
+    /**
+     * Stores the distance of a cube, unless it already has one. Each int
+     * holds 16 cubes, so the whole int is swapped at once, and tried again
+     * if another thread changed one of the other cubes in the meantime.
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if this call stored the distance
+     */
+    boolean trySet(int row, int col, int depth){
+        int i = (row * cols) + col;
+        int shift = (i & 15) << 1;
+        while(true){
+            int old = (int)DATA.getVolatile(data, i >>> 4);
+            if(((old >>> shift) & 3) != EMPTY){
+                return false;
+            }
+            int value = (old & ~(3 << shift)) | ((depth % 3) << shift);
+            if(DATA.compareAndSet(data, i >>> 4, old, value)){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds the table to a table file that is about to be written
+     *
+     * @param file - the file
+     * @param name - the name of its section
+     */
+    void addTo(TableFile file, String name){
+        file.add(name, rows, cols, data);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.Serializable;
+
+/**
+ * This class is one pruning table: for each sym coordinate (the row) and
+ * raw coordinate (the column), how many moves the cube is from the goal.
+ *
+ * A table does not have to store the whole distance. The search always
+ * knows the distance of the cube it came from, and one move only changes
+ * the distance by one at most, so depth() can work out the real distance
+ * from what the table holds and the distance of a neighbor. Only exact()
+ * tables can give the distance of a cube on its own.
+ *
+ * This is all the search needs, so a table read from a file only has to
+ * do this much. The builder needs a WritablePruningTable.
+ */
+public abstract class PruningTable implements Serializable {
+    //the number of sym coordinates
+    public final int rows;
+    //the number of raw coordinates
+    public final int cols;
+
+    /**
+     * This constructor creates an empty table
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     */
+    protected PruningTable(int rows, int cols){
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Gets what the table holds for a cube
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - the distance, or something that depth() can turn into it
+     */
+    public abstract int get(int row, int col);
+
+    /**
+     * Gets the distance of a cube one move away from a cube whose distance is known
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param neighbor - the distance of the cube one move away
+     * @return - the distance of the cube
+     */
+    public abstract int depth(int row, int col, int neighbor);
+
+    /**
+     * @return - true if get() gives the distance itself
+     */
+    public abstract boolean exact();
+
+    /**
+     * @return - the number of bytes the table takes up
+     */
+    public abstract long bytes();
+}
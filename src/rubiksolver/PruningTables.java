@@ -11,8 +11,12 @@
 
 package rubiksolver;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Serializable;
-import rubiksolverdef.CubieCube;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import rubiksolverdef.FlipUDSlice;
 import rubiksolver.RubikModel2.*;
 import rubiksolverdef.CornerPerm;
@@ -21,11 +25,21 @@ import rubiksolverdef.CornerPerm;
  * This class contains the Pruning tables needed for the Two-Phase algorithm
  *
  * See http://kociemba.org/math/pruning.htm for more info
+ *
+ * Each table is filled in one depth at a time. The sym coordinates are
+ * split into ranges that are expanded in parallel on a fork/join pool,
+ * and a cube is only counted by the thread whose write reaches it first.
  */
 public class PruningTables implements Serializable{
+    //sym coordinates expanded by one task of the phase 1 and phase 2 builders
+    private static final int PHASE1_GRAIN = 256;
+    private static final int PHASE2_GRAIN = 16;
+
+    //changes whenever the way the distances are stored changes, so saved tables are built again
+    public static final int VERSION = 1;
     
-    public byte Phase1PruningTable[][];
-    public byte Phase2PruningTable[][];
+    public PruningTable Phase1PruningTable;
+    public PruningTable Phase2PruningTable;
 
 
     /**
@@ -38,48 +52,295 @@ public class PruningTables implements Serializable{
      * @param perm - a CornerPerm instance
      */
     public PruningTables(RubikModel2 model, FlipUDSlice flip, TwistMoveTable table, CornerPerm perm){
-        Phase1PruningTable = new byte[flip.size][2187];
-        System.out.println("Initializing Phase1PruningTable:" );
+        this(model, flip, table, perm, false);
+    }
+
+    /**
+     * This constructs the Pruning tables on the common fork/join pool,
+     * either holding every distance in full or packed into 2 bits each
+     *
+     * @param model - the RubikModel
+     * @param flip - a FlipUDSlice instance
+     * @param table - a TwistMoveTable instance
+     * @param perm - a CornerPerm instance
+     * @param packed - true to store each distance mod 3 in a PackedPruningTable
+     */
+    public PruningTables(RubikModel2 model, FlipUDSlice flip, TwistMoveTable table, CornerPerm perm, boolean packed){
+        this(model, flip, table, perm, packed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This constructs the Pruning tables on the given pool
+     *
+     * @param model - the RubikModel
+     * @param flip - a FlipUDSlice instance
+     * @param table - a TwistMoveTable instance
+     * @param perm - a CornerPerm instance
+     * @param packed - true to store each distance mod 3 in a PackedPruningTable
+     * @param pool - the threads to build with
+     */
+    public PruningTables(RubikModel2 model, FlipUDSlice flip, TwistMoveTable table, CornerPerm perm, boolean packed, ForkJoinPool pool){
+        this(model, flip, table, perm, packed, pool, System.out);
+    }
+
+    /**
+     * This constructs the Pruning tables on the given pool, printing the
+     * progress to the given stream
+     *
+     * @param model - the RubikModel
+     * @param flip - a FlipUDSlice instance
+     * @param table - a TwistMoveTable instance
+     * @param perm - a CornerPerm instance
+     * @param packed - true to store each distance mod 3 in a PackedPruningTable
+     * @param pool - the threads to build with
+     * @param log - where to print the progress
+     */
+    public PruningTables(RubikModel2 model, FlipUDSlice flip, TwistMoveTable table, CornerPerm perm, boolean packed, ForkJoinPool pool, PrintStream log){
+        Phase1PruningTable = BuildPhase1(flip, table, packed, pool, log);
+        Phase2PruningTable = BuildPhase2(perm, table, packed, pool, log);
+    }
+
+    /**
+     * This reads the Pruning tables from a table file written by addTo. They
+     * are not copied, but read straight from the mapped file.
+     *
+     * @param file - the table file
+     * @param flip - the FlipUDSlice table the file was built from
+     * @param perm - the CornerPerm table the file was built from
+     * @param packed - true if the tables must be packed, false if they must be full
+     * @throws IOException - if the file does not hold the tables, or they were built another way
+     */
+    public PruningTables(TableFile file, FlipUDSlice flip, CornerPerm perm, boolean packed) throws IOException{
+        file.expect("PruningTables.version", VERSION);
+        file.expect("PruningTables.packed", packed ? 1 : 0);
+        //the rows are sym coordinates, so they only mean the same thing if the classes are the same
+        file.expect("PruningTables.FlipUDSlice", flip.checksum());
+        file.expect("PruningTables.CornerPerm", perm.checksum());
+        Phase1PruningTable = Map(file, "Phase1PruningTable", flip.size, 2187, packed);
+        Phase2PruningTable = Map(file, "Phase2PruningTable", perm.size, 40320, packed);
+    }
+
+    /**
+     * This adds the Pruning tables to a table file that is about to be
+     * written. Only tables that were built, not read from a file, can be
+     * added.
+     *
+     * @param file - the table file
+     * @param flip - the FlipUDSlice table they were built from
+     * @param perm - the CornerPerm table they were built from
+     */
+    public void addTo(TableFile file, FlipUDSlice flip, CornerPerm perm){
+        if(!(Phase1PruningTable instanceof WritablePruningTable) || !(Phase2PruningTable instanceof WritablePruningTable)){
+            throw new IllegalStateException("PruningTables read from a file are already saved");
+        }
+        file.put("PruningTables.version", VERSION);
+        file.put("PruningTables.packed", Phase1PruningTable.exact() ? 0 : 1);
+        file.put("PruningTables.FlipUDSlice", flip.checksum());
+        file.put("PruningTables.CornerPerm", perm.checksum());
+        ((WritablePruningTable)Phase1PruningTable).addTo(file, "Phase1PruningTable");
+        ((WritablePruningTable)Phase2PruningTable).addTo(file, "Phase2PruningTable");
+    }
 
-        //First, set all entries to a large number (allows for simple checking)
-        for(int i = 0; i < flip.size; i++){
-            for(int j = 0; j < 2187; j++){
-                Phase1PruningTable[i][j] = 42;
+    /**
+     * This finds one pruning table in a mapped table file
+     *
+     * @param file - the table file
+     * @param name - the name of the table's section
+     * @param rows - the number of sym coordinates it must have
+     * @param cols - the number of raw coordinates it must have
+     * @param packed - true if it must be packed, false if it must be full
+     * @return - the table
+     * @throws IOException - if the file does not hold the table
+     */
+    private static PruningTable Map(TableFile file, String name, int rows, int cols, boolean packed) throws IOException{
+        if(file.rows(name) != rows || file.cols(name) != cols){
+            throw new IOException(name + " does not match the sym coordinates");
+        }
+        try{
+            if(packed){
+                return new MappedPackedPruningTable(rows, cols, file.ints(name));
             }
+            return new MappedBytePruningTable(rows, cols, file.bytes(name));
+        }catch(IllegalArgumentException e){
+            throw new IOException(name + ": " + e.getMessage());
         }
+    }
+
+    /**
+     * This builds the Phase 1 pruning table, indexed by the FlipUDSlice Sym
+     * Coordinate and the Corner Orientation Coordinate
+     *
+     * @param flip - a FlipUDSlice instance
+     * @param table - a TwistMoveTable instance
+     * @param packed - true to store each distance mod 3
+     * @param pool - the threads to build with
+     * @return - the table
+     */
+    public static WritablePruningTable BuildPhase1(FlipUDSlice flip, TwistMoveTable table, boolean packed, ForkJoinPool pool){
+        return BuildPhase1(flip, table, packed, pool, System.out);
+    }
+
+    /**
+     * This builds the Phase 1 pruning table, printing the progress to the
+     * given stream
+     *
+     * @param flip - a FlipUDSlice instance
+     * @param table - a TwistMoveTable instance
+     * @param packed - true to store each distance mod 3
+     * @param pool - the threads to build with
+     * @param log - where to print the progress
+     * @return - the table
+     */
+    public static WritablePruningTable BuildPhase1(FlipUDSlice flip, TwistMoveTable table, boolean packed, ForkJoinPool pool, PrintStream log){
+        log.println("Initializing Phase1PruningTable with " + pool.getParallelism() + " threads:" );
+
+        //First, set all entries to empty (allows for simple checking)
+        WritablePruningTable prune1 = packed ? new PackedPruningTable(flip.size, 2187) : new BytePruningTable(flip.size, 2187);
         int count = 0;
-        CubieCube c = new CubieCube(true);
-        Phase1PruningTable[0][0] = 0;
+        int[] dist = new int[14];
+        prune1.trySet(0, 0, 0);
+        dist[0] = 1;
 
         //For each depth in the pruning table
         for(int i = 0; i < 13; i++){
-            System.out.print(("  Depth " + i + ": ["));
+            //once most of the table is set, it is faster to look for neighbors of the few cubes left
+            boolean backward = 2L * (count + 1) > (long)flip.size * 2187;
+            log.print(("  Depth " + i + (backward ? " (backward)" : "") + ": ["));
+            long time = System.currentTimeMillis();
+            AtomicInteger found = new AtomicInteger();
+            pool.invoke(new Phase1Level(flip, table, prune1, i, backward, 0, flip.size, found, log));
+            dist[i + 1] = found.get();
+            count += found.get();
+            log.println("] Done! (" + (System.currentTimeMillis() - time) + "ms)");
+        }
+        log.println("  Size of Phase1PruningTable: " + (count + 1));
+        log.println("  Distribution of Values:");
+
+        //Print the distribution of the pruning table, counted as it was filled in
+        //See http://kociemba.org/math/distribution.htm
+        for(int i = 0; i < 13; i++){
+            log.println("  " + i + ": " + dist[i]);
+        }
+        log.println("Done Initializing Phase1PruningTable!");
+        return prune1;
+    }
+
+    /**
+     * This builds the Phase 2 pruning table, indexed by the Corner
+     * Permutation Sym Coordinate and the Phase 2 Edge Permutation Coordinate
+     *
+     * @param perm - a CornerPerm instance
+     * @param table - a TwistMoveTable instance
+     * @param packed - true to store each distance mod 3
+     * @param pool - the threads to build with
+     * @return - the table
+     */
+    public static WritablePruningTable BuildPhase2(CornerPerm perm, TwistMoveTable table, boolean packed, ForkJoinPool pool){
+        return BuildPhase2(perm, table, packed, pool, System.out);
+    }
+
+    /**
+     * This builds the Phase 2 pruning table, printing the progress to the
+     * given stream
+     *
+     * @param perm - a CornerPerm instance
+     * @param table - a TwistMoveTable instance
+     * @param packed - true to store each distance mod 3
+     * @param pool - the threads to build with
+     * @param log - where to print the progress
+     * @return - the table
+     */
+    public static WritablePruningTable BuildPhase2(CornerPerm perm, TwistMoveTable table, boolean packed, ForkJoinPool pool, PrintStream log){
+        //Process is similar for Phase2
+        log.println("Initializing Phase2PruningTable with " + pool.getParallelism() + " threads:" );
+        WritablePruningTable prune2 = packed ? new PackedPruningTable(perm.size, 40320) : new BytePruningTable(perm.size, 40320);
+        int count = 0;
+        int[] dist = new int[20];
+        prune2.trySet(0, 0, 0);
+        dist[0] = 1;
+        //For each depth in pruning table
+        for(int i = 0; i < 19; i++){
+            boolean backward = 2L * (count + 1) > (long)perm.size * 40320;
+            log.print(("  Depth " + i + (backward ? " (backward)" : "") + ": ["));
+            long time = System.currentTimeMillis();
+            AtomicInteger found = new AtomicInteger();
+            pool.invoke(new Phase2Level(perm, table, prune2, i, backward, 0, perm.size, found, log));
+            dist[i + 1] = found.get();
+            count += found.get();
+            log.println("] Done! (" + (System.currentTimeMillis() - time) + "ms)");
+        }
+        log.println("  Size of Phase2PruningTable: " + (count + 1));
+        log.println("  Distribution of Values:");
+        for(int i = 0; i < 19; i++){
+            log.println("  " + i + ": " + dist[i]);
+        }
+        log.println("Done Initializing Phase2PruningTable!");
+        return prune2;
+    }
+
+    /**
+     * This task sets every cube one move away from a cube at the given depth
+     * of the phase 1 table, for a range of FlipUDSlice Sym Coordinates
+     */
+    private static class Phase1Level extends RecursiveAction {
+        private final FlipUDSlice flip;
+        private final TwistMoveTable table;
+        private final WritablePruningTable prune1;
+        private final int depth;
+        private final boolean backward;
+        private final int start;
+        private final int end;
+        private final AtomicInteger found;
+        private final PrintStream log;
+
+        Phase1Level(FlipUDSlice flip, TwistMoveTable table, WritablePruningTable prune1, int depth, boolean backward, int start, int end, AtomicInteger found, PrintStream log){
+            this.flip = flip;
+            this.table = table;
+            this.prune1 = prune1;
+            this.depth = depth;
+            this.backward = backward;
+            this.start = start;
+            this.end = end;
+            this.found = found;
+            this.log = log;
+        }
+
+        protected void compute(){
+            if(end - start > PHASE1_GRAIN){
+                int middle = (start + end) >>> 1;
+                invokeAll(new Phase1Level(flip, table, prune1, depth, backward, start, middle, found, log),
+                          new Phase1Level(flip, table, prune1, depth, backward, middle, end, found, log));
+                return;
+            }
+            if(backward){
+                found.addAndGet(backward());
+                return;
+            }
+            int count = 0;
+            int i = depth;
             //For each possible FlipUDSlice SymCoordinate
-            for(int j = 0; j < flip.size; j++){
+            for(int j = start; j < end; j++){
                 //For each Corner Orientation Coordinate
                 for(int k = 0; k < 2187; k++){
-                    if(Phase1PruningTable[j][k] == i){
+                    if(prune1.matches(j, k, i)){
                         //apply all 18 moves to the cube using move tables
                         for(TurnAxis l : TurnAxis.values()){
                             for(int m = 0; m < 3; m++){
-                                int UDSliceCoordRaw = (table.FlipUDSliceTwistMove[j][3 * l.ordinal() + m]);
+                                int UDSliceCoordRaw = (table.FlipUDSliceTwistMove[(j * TwistMoveTable.MOVES) + (3 * l.ordinal()) + m]);
                                 int UDSliceCoord = (int)(UDSliceCoordRaw / 16);
-                                int CornOriCoordRaw = table.CornOriTwistMove[k][3 * l.ordinal() + m];
-                                int CornOriCoord = table.CornOriSym[CornOriCoordRaw][UDSliceCoordRaw % 16];
+                                int CornOriCoordRaw = table.CornOriTwistMove[(k * TwistMoveTable.MOVES) + (3 * l.ordinal()) + m];
+                                int CornOriCoord = table.CornOriSym[(CornOriCoordRaw * TwistMoveTable.SYMS) + (UDSliceCoordRaw % 16)];
 
-                                //check to see if resulting entry is not set
-                                if(Phase1PruningTable[UDSliceCoord][CornOriCoord] == 42){
-                                    //if not, set it
-                                     Phase1PruningTable[UDSliceCoord][CornOriCoord] = (byte)(i + 1);
+                                //set the resulting entry if it is not set yet
+                                if(prune1.isEmpty(UDSliceCoord, CornOriCoord) && prune1.trySet(UDSliceCoord, CornOriCoord, i + 1)){
                                      count++;
                                 }
                                 int UDSliceRaw = flip.FlipUDSliceToRaw[UDSliceCoord][0];
                                 //check all possible symmetries. If the raw coordinate is the same, then also set
                                 for(int x = 1; x < 16; x++){
-                                    if(table.FlipUDSliceSym[UDSliceCoord][x] == UDSliceRaw){
-                                        int newCornOriCoord = table.CornOriSym[CornOriCoord][x];
-                                        if(Phase1PruningTable[UDSliceCoord][newCornOriCoord] == 42){
-                                            Phase1PruningTable[UDSliceCoord][newCornOriCoord] = (byte)(i + 1);
+                                    if(table.FlipUDSliceSym[(UDSliceCoord * TwistMoveTable.SYMS) + x] == UDSliceRaw){
+                                        int newCornOriCoord = table.CornOriSym[(CornOriCoord * TwistMoveTable.SYMS) + x];
+                                        if(prune1.isEmpty(UDSliceCoord, newCornOriCoord) && prune1.trySet(UDSliceCoord, newCornOriCoord, i + 1)){
                                             count++;
                                         }
                                     }
@@ -89,46 +350,94 @@ public class PruningTables implements Serializable{
                     }
                 }
                 if(j % 3220 == 0){
-                    System.out.print("=");
+                    log.print("=");
                 }
             }
-            System.out.println("] Done!");
+            found.addAndGet(count);
         }
-        System.out.println("  Size of Phase1PruningTable: " + (count + 1));
-        System.out.println("  Distribution of Values:");
-        int[] dist = new int[13];
-
-        //Print the distribution of the pruning table
-        //See http://kociemba.org/math/distribution.htm
-        for(int i = 0; i < flip.size; i++){
-            for(int j = 0; j < 2187; j++){
-                dist[Phase1PruningTable[i][j]]++;
+        /**
+         * Sets every empty cube in the range that is one move away from a
+         * cube at the given depth. Every cube it does not set is further away.
+         * A cube is only ever written by the task that owns its row here, and
+         * cubes that are symmetric to it are in the same row and are checked
+         * on their own.
+         *
+         * @return - the number of cubes set
+         */
+        private int backward(){
+            int count = 0;
+            int i = depth;
+            for(int j = start; j < end; j++){
+                for(int k = 0; k < 2187; k++){
+                    if(!prune1.isEmpty(j, k)){
+                        continue;
+                    }
+                    for(int move = 0; move < TwistMoveTable.MOVES; move++){
+                        int UDSliceCoordRaw = table.FlipUDSliceTwistMove[(j * TwistMoveTable.MOVES) + move];
+                        int CornOriCoordRaw = table.CornOriTwistMove[(k * TwistMoveTable.MOVES) + move];
+                        int CornOriCoord = table.CornOriSym[(CornOriCoordRaw * TwistMoveTable.SYMS) + (UDSliceCoordRaw % 16)];
+                        //an empty cube is at least i + 1 moves away, so a neighbor that matches is exactly i away
+                        if(prune1.matches((int)(UDSliceCoordRaw / 16), CornOriCoord, i)){
+                            if(prune1.trySet(j, k, i + 1)){
+                                count++;
+                            }
+                            break;
+                        }
+                    }
+                }
+                if(j % 3220 == 0){
+                    log.print("=");
+                }
             }
+            return count;
         }
-        for(int i = 0; i < 13; i++){
-            System.out.println("  " + i + ": " + dist[i]);
+    }
+
+    /**
+     * This task sets every cube one move away from a cube at the given depth
+     * of the phase 2 table, for a range of Corner Permutation Sym Coordinates
+     */
+    private static class Phase2Level extends RecursiveAction {
+        private final CornerPerm perm;
+        private final TwistMoveTable table;
+        private final WritablePruningTable prune2;
+        private final int depth;
+        private final boolean backward;
+        private final int start;
+        private final int end;
+        private final AtomicInteger found;
+        private final PrintStream log;
+
+        Phase2Level(CornerPerm perm, TwistMoveTable table, WritablePruningTable prune2, int depth, boolean backward, int start, int end, AtomicInteger found, PrintStream log){
+            this.perm = perm;
+            this.table = table;
+            this.prune2 = prune2;
+            this.depth = depth;
+            this.backward = backward;
+            this.start = start;
+            this.end = end;
+            this.found = found;
+            this.log = log;
         }
-        System.out.println("Done Initializing Phase1PruningTable!");
 
-        //Process is similar for Phase2
-        System.out.println("Initializing Phase2PruningTable:" );
-        Phase2PruningTable = new byte[perm.size][40320];
-        for(int i = 0; i < perm.size; i++){
-            for(int j = 0; j < 40320; j++){
-                Phase2PruningTable[i][j] = 42;
+        protected void compute(){
+            if(end - start > PHASE2_GRAIN){
+                int middle = (start + end) >>> 1;
+                invokeAll(new Phase2Level(perm, table, prune2, depth, backward, start, middle, found, log),
+                          new Phase2Level(perm, table, prune2, depth, backward, middle, end, found, log));
+                return;
             }
-        }
-        count = 0;
-        c = new CubieCube(true);
-        Phase2PruningTable[0][0] = 0;
-        //For each depth in pruning table
-        for(int i = 0; i < 19; i++){
-            System.out.print(("  Depth " + i + ": ["));
+            if(backward){
+                found.addAndGet(backward());
+                return;
+            }
+            int count = 0;
+            int i = depth;
             //For each Corner Permutation Sym Coordinate
-            for(int j = 0; j < perm.size; j++){
+            for(int j = start; j < end; j++){
                 //Foe each Edge Permutation Coordinate
                 for(int k = 0; k < 40320; k++){
-                    if(Phase2PruningTable[j][k] == i){
+                    if(prune2.matches(j, k, i)){
                         for(TurnAxis l : TurnAxis.values()){
                             for(int m = 0; m < 3; m++){
                                 if(l != TurnAxis.U && l != TurnAxis.D){
@@ -136,23 +445,21 @@ public class PruningTables implements Serializable{
                                         continue;
                                     }
                                 }
-                                int CornPermRaw = (table.P2CornPermTwistMove[j][3 * l.ordinal() + m]);
+                                int CornPermRaw = (table.P2CornPermTwistMove[(j * TwistMoveTable.MOVES) + (3 * l.ordinal()) + m]);
                                 int CornPerm = (int)(CornPermRaw / 16);
-                                int EdgePermRaw = table.P2EdgePermTwistMove[k][3 * l.ordinal() + m];
-                                int EdgePermCoord = table.P2EdgePermSym[EdgePermRaw][CornPermRaw % 16];
-                                if(Phase2PruningTable[CornPerm][EdgePermCoord] == 42){
-                                     Phase2PruningTable[CornPerm][EdgePermCoord] = (byte)(i + 1);
+                                int EdgePermRaw = table.P2EdgePermTwistMove[(k * TwistMoveTable.MOVES) + (3 * l.ordinal()) + m];
+                                int EdgePermCoord = table.P2EdgePermSym[(EdgePermRaw * TwistMoveTable.SYMS) + (CornPermRaw % 16)];
+                                if(prune2.isEmpty(CornPerm, EdgePermCoord) && prune2.trySet(CornPerm, EdgePermCoord, i + 1)){
                                      count++;
                                 }
                                 int CornPermAsRaw = perm.CornPermToRaw[CornPerm][0];
-                                if(table.P2CornPermSym[CornPerm][0] != CornPermAsRaw){
-                                    System.out.println("Something is wrong in prune!");
+                                if(table.P2CornPermSym[CornPerm * TwistMoveTable.SYMS] != CornPermAsRaw){
+                                    log.println("Something is wrong in prune!");
                                 }
                                 for(int x = 1; x < 16; x++){
-                                    if(table.P2CornPermSym[CornPerm][x] == CornPermAsRaw){
-                                        int newEdgePermCoord = table.P2EdgePermSym[EdgePermCoord][x];
-                                        if(Phase2PruningTable[CornPerm][newEdgePermCoord] == 42){
-                                            Phase2PruningTable[CornPerm][newEdgePermCoord] = (byte)(i + 1);
+                                    if(table.P2CornPermSym[(CornPerm * TwistMoveTable.SYMS) + x] == CornPermAsRaw){
+                                        int newEdgePermCoord = table.P2EdgePermSym[(EdgePermCoord * TwistMoveTable.SYMS) + x];
+                                        if(prune2.isEmpty(CornPerm, newEdgePermCoord) && prune2.trySet(CornPerm, newEdgePermCoord, i + 1)){
                                             count++;
                                         }
                                     }
@@ -162,23 +469,49 @@ public class PruningTables implements Serializable{
                     }
                 }
                 if(j % 138 == 0){
-                    System.out.print("=");
+                    log.print("=");
                 }
             }
-            System.out.println("] Done!");
+            found.addAndGet(count);
         }
-        System.out.println("  Size of Phase2PruningTable: " + (count + 1));
-        System.out.println("  Distribution of Values:");
-        dist = new int[19];
-        for(int i = 0; i < perm.size; i++){
-            for(int j = 0; j < 40320; j++){
-                dist[Phase2PruningTable[i][j]]++;
+
+        /**
+         * Sets every empty cube in the range that is one move away from a
+         * cube at the given depth, the same way as the phase 1 task does
+         *
+         * @return - the number of cubes set
+         */
+        private int backward(){
+            int count = 0;
+            int i = depth;
+            for(int j = start; j < end; j++){
+                for(int k = 0; k < 40320; k++){
+                    if(!prune2.isEmpty(j, k)){
+                        continue;
+                    }
+                    for(int move = 0; move < TwistMoveTable.MOVES; move++){
+                        //only U and D turns and the other half turns keep the cube in phase 2
+                        int axis = (int)(move / 3);
+                        if(axis != TurnAxis.U.ordinal() && axis != TurnAxis.D.ordinal() && move % 3 != 1){
+                            continue;
+                        }
+                        int CornPermRaw = table.P2CornPermTwistMove[(j * TwistMoveTable.MOVES) + move];
+                        int EdgePermRaw = table.P2EdgePermTwistMove[(k * TwistMoveTable.MOVES) + move];
+                        int EdgePermCoord = table.P2EdgePermSym[(EdgePermRaw * TwistMoveTable.SYMS) + (CornPermRaw % 16)];
+                        if(prune2.matches((int)(CornPermRaw / 16), EdgePermCoord, i)){
+                            if(prune2.trySet(j, k, i + 1)){
+                                count++;
+                            }
+                            break;
+                        }
+                    }
+                }
+                if(j % 138 == 0){
+                    log.print("=");
+                }
             }
+            return count;
         }
-        for(int i = 0; i < 19; i++){
-            System.out.println("  " + i + ": " + dist[i]);
-        }
-        System.out.println("Done Initializing Phase2PruningTable!");
     }
 
-}
+}
\ No newline at end of file
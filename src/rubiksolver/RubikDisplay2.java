@@ -18,7 +18,6 @@ import java.awt.event.ActionListener;
 import javax.swing.JOptionPane;
 import rubiksolverdef.*;
 import java.io.*;
-import java.util.LinkedList;
 import javax.swing.JButton;
 import javax.swing.UIManager;
 import org.netbeans.lib.awtextra.AbsoluteConstraints;
@@ -29,17 +28,17 @@ import rubiksolver.RubikModel2.*;
  */
 public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
     
+    static private SolverEngine engine;
     static private RubikModel2 model;
-    static private TwistMoveTable table;
-    static private FlipUDSlice flip;
-    static private CornerPerm perm;
-    static private PruningTables prune;
     static private ViewCube2 view;
     static private CubieCube cube;
     static private JButton[][] up, down, left, right, back, front;
     static private boolean canEdit;
-    static private LinkedList<Integer> moveList;
+    static private int[] moveList;
     static private int nextMove;
+    //the cube as a ByteCube, and the cube it turns into, for the move buttons
+    static private ByteCube moving = new ByteCube();
+    static private ByteCube turned = new ByteCube();
     /** Creates new form RubikDisplay */
     public RubikDisplay2() {
         try {
@@ -48,146 +47,10 @@ public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
                     e.printStackTrace();
          }
         initComponents();
-        File input, output;
-        ObjectInputStream in;
-        ObjectOutputStream out;
-        model = null;
         nextMove = 0;
         moveList = null;
-        long time1 = System.currentTimeMillis();
-        //Initializes each structure by testing if it exists
-        try{
-            input = new File("model.dat");
-            in = new ObjectInputStream(new FileInputStream(input));
-            model = (RubikModel2)in.readObject();
-            in.close();
-            System.out.println("Model read from file");
-        }catch (Exception e){
-            System.out.println("Error reading model from file");
-            //e.printStackTrace();
-        }
-        //if unable to read from file, will recalculate
-        if(model == null){
-            model = new RubikModel2();
-            try{
-                output = new File("model.dat");
-                out = new ObjectOutputStream(new FileOutputStream(output));
-                out.writeObject(model);
-                out.close();
-            }catch(Exception e){
-                System.out.println("Error writing model");
-                e.printStackTrace();
-            }
-            System.out.println("Model created and saved");
-        }
-        long time2 = System.currentTimeMillis();
-        flip = null;
-        try{
-            input = new File("flip.dat");
-            in = new ObjectInputStream(new FileInputStream(input));
-            flip = (FlipUDSlice)in.readObject();
-            flip.setModel(model);
-            in.close();
-            System.out.println("FlipUDSlice read from file");
-        }catch (Exception e){
-            System.out.println("Error reading FlipUDSlice from file");
-            //e.printStackTrace();
-        }
-        if(flip == null){
-            flip = new FlipUDSlice(model);
-            try{
-                output = new File("flip.dat");
-                out = new ObjectOutputStream(new FileOutputStream(output));
-                out.writeObject(flip);
-                out.close();
-            }catch(Exception e){
-                System.out.println("Error writing FlipUDSlice");
-                e.printStackTrace();
-            }
-            System.out.println("FlipUDSlice created and saved");
-        }
-        long time6 = System.currentTimeMillis();
-        perm = null;
-        try{
-            input = new File("perm.dat");
-            in = new ObjectInputStream(new FileInputStream(input));
-            perm = (CornerPerm)in.readObject();
-            perm.setModel(model);
-            in.close();
-            System.out.println("CornerPerm read from file");
-        }catch (Exception e){
-            System.out.println("Error reading CornerPerm from file");
-            //e.printStackTrace();
-        }
-        if(perm == null){
-            perm = new CornerPerm(model);
-            try{
-                output = new File("perm.dat");
-                out = new ObjectOutputStream(new FileOutputStream(output));
-                out.writeObject(perm);
-                out.close();
-            }catch(Exception e){
-                System.out.println("Error writing CornerPerm");
-                e.printStackTrace();
-            }
-            System.out.println("CornerPerm created and saved");
-        }
-        long time3 = System.currentTimeMillis();
-        table = null;
-        try{
-            input = new File("twist.dat");
-            in = new ObjectInputStream(new FileInputStream(input));
-            table = (TwistMoveTable)in.readObject();
-            in.close();
-            System.out.println("TwistMoveTable read from file");
-        }catch (Exception e){
-            System.out.println("Error reading TwistMoveTable from file");
-            //e.printStackTrace();
-        }
-        if(table == null){
-            table = new TwistMoveTable(model, flip, perm);
-            try{
-                output = new File("twist.dat");
-                out = new ObjectOutputStream(new FileOutputStream(output));
-                out.writeObject(table);
-                out.close();
-            }catch(Exception e){
-                System.out.println("Error writing TwistMoveTable");
-                e.printStackTrace();
-            }
-            System.out.println("TwistMoveTable created and saved");
-        }
-        long time4 = System.currentTimeMillis();
-        prune = null;
-        try{
-            input = new File("prune.dat");
-            in = new ObjectInputStream(new FileInputStream(input));
-            prune = (PruningTables)in.readObject();
-            in.close();
-            System.out.println("PruningTables read from file");
-        }catch (Exception e){
-            System.out.println("Error reading PruningTables from file");
-            //e.printStackTrace();
-        }
-        if(prune == null){
-            prune = new PruningTables(model, flip, table, perm);
-            try{
-                output = new File("prune.dat");
-                out = new ObjectOutputStream(new FileOutputStream(output));
-                out.writeObject(prune);
-                out.close();
-            }catch(Exception e){
-                System.out.println("Error writing PruningTables");
-                e.printStackTrace();
-            }
-            System.out.println("PruningTables created and saved");
-        }
-        long time5 = System.currentTimeMillis();
-        System.out.println("Model Initialization took " + (time2 - time1) + "ms");
-        System.out.println("FlipUDSlice Initialization took " + (time6 - time2) + "ms");
-        System.out.println("CornerPerm Initialization took " + (time3 - time6) + "ms");
-        System.out.println("Table Initialization took " + (time4 - time3) + "ms");
-        System.out.println("PruningTable Initialization took " + (time5 - time4) + "ms");
+        engine = SolverEngine.load(new File("."));
+        model = engine.model;
         this.setSize(800, 600);
         up = new JButton[3][3];
         down = new JButton[3][3];
@@ -227,6 +90,32 @@ public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
         updateC();
     }
 
+    /**
+     * Applies a move to the cube shown
+     *
+     * @param move - the move index
+     */
+    private static void turn(int move){
+        moving.set(cube);
+        model.DoMove(moving, move, turned);
+        cube = turned.toCubieCube();
+    }
+
+    /**
+     * Turns a list of moves into their names
+     *
+     * @param moves - the move indexes
+     * @param length - the number of moves to use
+     * @return - the names, each with a space before it
+     */
+    private static String backtrace(int[] moves, int length){
+        String text = "";
+        for(int i = 0; i < length; i++){
+            text += " " + Move.values()[moves[i]].name();
+        }
+        return text;
+    }
+
     /**
      * Updates the text on the top of the GUI
      * @param input - text to add
@@ -456,17 +345,17 @@ public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
             jTextField6.setText(""+model.CornOriCoord(cube.c));
             jTextField5.setText(""+model.EdgeOriCoord(cube.e));
             jTextField4.setText(""+model.UDSliceCoord(cube));
-            int flipUD = flip.FlipUDSliceCoord(cube);
+            int flipUD = engine.flip.FlipUDSliceCoord(cube);
             jTextField3.setText(""+(int)(flipUD/ 16) + " " + (int)(flipUD % 16));
-            jTextField2.setText(""+prune.Phase1PruningTable[(int)(flipUD / 16)][table.CornOriSym[model.CornOriCoord(cube.c)][flipUD % 16]]);
+            jTextField2.setText(""+engine.phase1Depth(cube));
             jTextField11.setText(""+model.CornPermCoord(cube.c));
             jTextField10.setText(""+model.EdgePermCoord(cube.e));
             jTextField9.setText(""+model.UDSliceSortedCoord(cube));
             if(model.CornOriCoord(cube.c) == 0 && model.EdgeOriCoord(cube.e) == 0 && (int)(flipUD / 16) == 0){ //phase2
                 jTextField12.setText(""+model.Phase2EdgePermCoord(cube));
-                int CornPerm = perm.CornPermCoord(cube);
-                jTextField8.setText("" + (int)(perm.CornPermCoord(cube) / 16) + " " + CornPerm % 16);
-                jTextField7.setText("" + prune.Phase2PruningTable[(int)(CornPerm / 16)][table.P2EdgePermSym[model.Phase2EdgePermCoord(cube)][CornPerm % 16]]);
+                int CornPerm = engine.perm.CornPermCoord(cube);
+                jTextField8.setText("" + (int)(engine.perm.CornPermCoord(cube) / 16) + " " + CornPerm % 16);
+                jTextField7.setText("" + engine.phase2Depth(cube));
             }
             updateView();
         }
@@ -846,7 +735,25 @@ public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
 
         if(JOptionPane.showConfirmDialog(this, "Are you sure?") == JOptionPane.YES_OPTION){
             jTextArea1.setText("");
-            moveList = RubikSolver2.solve(cube, table, flip, prune, model, perm, this);
+            //print the search to the console as it goes, for debugging
+            Solution solution = engine.solve(cube, RubikSolver2.MAX_LENGTH, 0, new SolveAdapter(){
+                public void depthStarted(int phase, int depth){
+                    System.out.println("Searching Phase " + phase + " at depth " + depth);
+                }
+                public void nodeExpanded(int phase, int[] moves, int length, int pruneDepth){
+                    System.out.println("Checking coordinates " + backtrace(moves, length) + " " + pruneDepth);
+                }
+                public void phaseComplete(int phase, int[] moves, int length){
+                    System.out.println("Solved Phase " + phase + "!" + backtrace(moves, length));
+                }
+            });
+            moveList = null;
+            if(solution != null){
+                moveList = solution.moves();
+                updateText("Found solution of length " + solution.length() + ": " + solution);
+            }else{
+                updateText("Cannot Solve!");
+            }
             if(moveList != null){
                 btn_Solve1.setEnabled(true);
                 btn_Solve2.setEnabled(true);
@@ -879,32 +786,32 @@ public class RubikDisplay2 extends javax.swing.JFrame implements ActionListener{
     }//GEN-LAST:event_btn_inputActionPerformed
 
 private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.U);
+        turn(Move.Ux1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton2ActionPerformed
 
 private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.D);
+        turn(Move.Dx1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton3ActionPerformed
 
 private void jButton4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton4ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.L);
+        turn(Move.Lx1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton4ActionPerformed
 
 private void jButton5ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton5ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.R);
+        turn(Move.Rx1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton5ActionPerformed
 
 private void jButton6ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton6ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.F);
+        turn(Move.Fx1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton6ActionPerformed
 
 private void jButton7ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton7ActionPerformed
-        cube = model.DoMove(cube, TurnAxis.B);
+        turn(Move.Bx1.ordinal());
         updateC();
 }//GEN-LAST:event_jButton7ActionPerformed
 
@@ -973,23 +880,20 @@ private void btn_saveActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRS
 }//GEN-LAST:event_btn_saveActionPerformed
 
 private void btn_Solve1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btn_Solve1ActionPerformed
-    if(nextMove >= 0 && nextMove < moveList.size()){
-        int move = moveList.get(nextMove);
-        for(int j = 0; j < (move % 3) + 1; j++){
-            cube = model.DoMove(cube, TurnAxis.values()[(int)(move / 3)]);
-        }
+    if(nextMove >= 0 && nextMove < moveList.length){
+        int move = moveList[nextMove];
+        turn(move);
         nextMove++;
         updateC();
     }
 }//GEN-LAST:event_btn_Solve1ActionPerformed
 
 private void btn_Solve2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btn_Solve2ActionPerformed
-    if(nextMove > 0 && nextMove <= moveList.size()){
+    if(nextMove > 0 && nextMove <= moveList.length){
         nextMove--;
-        int move = moveList.get(nextMove);
-        for(int j = 4; j > (move % 3) + 1; j--){
-            cube = model.DoMove(cube, TurnAxis.values()[(int)(move / 3)]);
-        }
+        int move = moveList[nextMove];
+        //the inverse turns the same face the other way
+        turn((3 * (int)(move / 3)) + 2 - (move % 3));
         updateC();
     }
 }//GEN-LAST:event_btn_Solve2ActionPerformed
@@ -52,6 +52,37 @@ public class RubikModel2 implements Serializable {
     public int[][] SymMoveInv;
     public int[][] SymComb;
     public int[][] SymFace;
+    //the 18 moves and the 16 symmetries and their inverses as ByteCubes
+    public ByteCube[] ByteCubeMove;
+    public ByteCube[] ByteCubeSym;
+    public ByteCube[] ByteCubeSymInv;
+    //SymInvIndex[k] is the symmetry that is the inverse of symmetry k, so SinvThenS(cc, k) = SthenSinv(cc, SymInvIndex[k])
+    public int[] SymInvIndex;
+    //conjugation tables on raw coordinates. Entry (coord * 48) + k of CornPermConj, for all 48
+    //symmetries, and (coord * 16) + k of UDSliceConj is the coordinate of SthenSinv(cube, k)
+    public char[] CornPermConj;
+    public char[] UDSliceConj;
+    //the Edge Orientation of SthenSinv(cube, k) as 12 bits, edge i in bit 11 - i, is
+    //EdgeOriPermConj[(k * 4096) + the 12 bits of the cube] ^ EdgeOriFlipConj[(UDSlice * 16) + k]
+    public short[] EdgeOriPermConj;
+    public short[] EdgeOriFlipConj;
+
+    //FACTORIAL[n] = n!, for the permutation coordinates
+    public static final int[] FACTORIAL = new int[13];
+    //BINOMIAL[n][k] = n choose k, for the UDSlice coordinate
+    public static final int[][] BINOMIAL = new int[12][5];
+    static{
+        FACTORIAL[0] = 1;
+        for(int n = 1; n < FACTORIAL.length; n++){
+            FACTORIAL[n] = FACTORIAL[n - 1] * n;
+        }
+        for(int n = 0; n < 12; n++){
+            BINOMIAL[n][0] = 1;
+            for(int k = 1; k < 5; k++){
+                BINOMIAL[n][k] = (n == 0) ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
     
     /** Creates a new instance of RubikModel2 */
     public RubikModel2() {
@@ -588,16 +619,18 @@ public class RubikModel2 implements Serializable {
         System.arraycopy(temp30, 0, EdgeCubieSym[Symmetry.S_LR2.ordinal()].a, 0, Edge.values().length);
         
         
-        Symmetries = new CubieCube[16];
+        //all 48 symmetries of the cube. The first 16 are the ones that keep the UD axis,
+        //which are the only ones the tables use
+        Symmetries = new CubieCube[48];
         CubieCube cc = new CubieCube(true);
-        for(int i = 0; i < 16; i++){
+        for(int i = 0; i < 48; i++){
             Symmetries[i] = new CubieCube();
             Symmetries[i].c = CornSym(cc.c, i, false);
             Symmetries[i].e = EdgeSym(cc.e, i, false);
         }
         
-        SymmetriesInv = new CubieCube[16];
-        for(int i = 0; i < 16; i++){
+        SymmetriesInv = new CubieCube[48];
+        for(int i = 0; i < 48; i++){
             SymmetriesInv[i] = new CubieCube();
             SymmetriesInv[i].c = CornSym(cc.c, i, true);
             SymmetriesInv[i].e = EdgeSym(cc.e, i, true);
@@ -696,6 +729,115 @@ public class RubikModel2 implements Serializable {
                 }
             }
         }
+
+        ByteCubeMove = new ByteCube[Move.values().length];
+        CubieCube moved = new CubieCube(true);
+        for(TurnAxis axis : TurnAxis.values()){
+            for(int k = 0; k < 3; k++){
+                moved = DoMove(moved, axis);
+                ByteCubeMove[(3 * axis.ordinal()) + k] = new ByteCube(moved);
+            }
+            moved = DoMove(moved, axis);
+        }
+        ByteCubeSym = new ByteCube[48];
+        ByteCubeSymInv = new ByteCube[48];
+        for(int i = 0; i < 48; i++){
+            ByteCubeSym[i] = new ByteCube(Symmetries[i]);
+            ByteCubeSymInv[i] = new ByteCube(SymmetriesInv[i]);
+        }
+        InitSymInvIndex();
+
+        InitConjugation();
+    }
+
+    /**
+     * This function finds the inverse of each symmetry, the one whose
+     * product with it is the identity
+     */
+    private void InitSymInvIndex(){
+        SymInvIndex = new int[48];
+        ByteCube solved = new ByteCube();
+        ByteCube prod = new ByteCube();
+        for(int i = 0; i < 48; i++){
+            for(int j = 0; j < 48; j++){
+                ByteCube.Multiply(ByteCubeSym[i], ByteCubeSym[j], prod);
+                if(java.util.Arrays.equals(prod.cp, solved.cp) && java.util.Arrays.equals(prod.co, solved.co)
+                        && java.util.Arrays.equals(prod.ep, solved.ep) && java.util.Arrays.equals(prod.eo, solved.eo)){
+                    SymInvIndex[i] = j;
+                }
+            }
+        }
+    }
+
+    /**
+     * This function builds the conjugation tables, so the reduce functions
+     * and the sym tables only have to look the results up. It is kept out of
+     * the constructor, which is too big for the JIT to compile
+     */
+    private void InitConjugation(){
+        ByteCube c = new ByteCube();
+        ByteCube half = new ByteCube();
+        ByteCube conj = new ByteCube();
+        CornPermConj = new char[40320 * 48];
+        for(int i = 0; i < 40320; i++){
+            c.InvCornCoord(i);
+            byte[] perm = c.cp;
+            for(int k = 0; k < 48; k++){
+                //only the corner permutation of SthenSinv is needed, ranked as it is made
+                byte[] sym = ByteCubeSym[k].cp;
+                byte[] symInv = ByteCubeSymInv[k].cp;
+                int x = 0;
+                int seen = 0;
+                for(int j = 0; j < 8; j++){
+                    int corner = sym[perm[symInv[j]]];
+                    x += Integer.bitCount(seen >>> (corner + 1)) * FACTORIAL[j];
+                    seen |= 1 << corner;
+                }
+                CornPermConj[(i * 48) + k] = (char)x;
+            }
+        }
+        //the UDSlice of the conjugate depends only on the UDSlice, and so does which edges it
+        //flips, since a symmetry flips an edge or not by whether it is a slice edge
+        UDSliceConj = new char[495 * 16];
+        EdgeOriFlipConj = new short[495 * 16];
+        for(int i = 0; i < 495; i++){
+            c.InvCoord(i);
+            for(int k = 0; k < 16; k++){
+                SthenSinv(c, k, half, conj);
+                UDSliceConj[(i * 16) + k] = (char)conj.UDSliceCoord();
+                EdgeOriFlipConj[(i * 16) + k] = (short)EdgeOriBits(conj);
+            }
+        }
+        //and the orientation of each edge of the conjugate is that of one edge of the cube,
+        //so the rest is a permutation of the bits, built up one bit at a time
+        EdgeOriPermConj = new short[16 * 4096];
+        for(int k = 0; k < 16; k++){
+            int[] image = new int[12];
+            for(int i = 0; i < 12; i++){
+                c = new ByteCube();
+                c.eo[i] = 1;
+                SthenSinv(c, k, half, conj);
+                image[i] = EdgeOriBits(conj) ^ EdgeOriFlipConj[k];
+            }
+            for(int bits = 1; bits < 4096; bits++){
+                int low = Integer.numberOfTrailingZeros(bits);
+                EdgeOriPermConj[(k * 4096) + bits] = (short)(EdgeOriPermConj[(k * 4096) + (bits & (bits - 1))] ^ image[11 - low]);
+            }
+        }
+    }
+
+    /**
+     * This function gets the orientations of all 12 edges of a ByteCube
+     *
+     * @param cc - the cube
+     * @return - the orientation of edge i in bit 11 - i
+     */
+    private static int EdgeOriBits(ByteCube cc){
+        int s = 0;
+        for(int i = 0; i < 12; i++){
+            s = (s << 1) | cc.eo[i];
+        }
+        return s;
     }
 
     /**
@@ -925,24 +1067,38 @@ public class RubikModel2 implements Serializable {
             prod.a[co.ordinal()].c = (a.a[(b.a[co.ordinal()]).c.ordinal()]).c;
             oriA = a.a[b.a[co.ordinal()].c.ordinal()].o;
             oriB = b.a[co.ordinal()].o;
-            if(oriA < 3 && oriB < 3){
-                ori = oriA + oriB;
-                if(ori >=3) ori = ori-3;
-            }else if(oriA < 3 && oriB >= 3){
-                ori = oriA + oriB;
-                if(ori >= 6) ori = ori - 3;
-            }else if(oriA >= 3 && oriB < 3){
-                ori = oriA - oriB;
-                if(ori < 3) ori = ori + 3;
-            }else if(oriA >= 3 && oriB >= 3){
-                ori = oriA - oriB;
-                if(ori < 0) ori = ori + 3;
-            }
+            ori = OriMult(oriA, oriB);
             prod.a[co.ordinal()].o = ori;
         }
         return prod;
     }
 
+    /**
+     * This function combines two corner orientations the way CornMult
+     * does. Orientations 3 to 5 are the mirrored ones that symmetries give.
+     *
+     * @param oriA - the orientation of the corner in the first cubie
+     * @param oriB - the orientation of the corner in the second cubie
+     * @return - the orientation of the corner in the product
+     */
+    public static int OriMult(int oriA, int oriB){
+        int ori;
+        if(oriA < 3 && oriB < 3){
+            ori = oriA + oriB;
+            if(ori >= 3) ori = ori - 3;
+        }else if(oriA < 3){
+            ori = oriA + oriB;
+            if(ori >= 6) ori = ori - 3;
+        }else if(oriB < 3){
+            ori = oriA - oriB;
+            if(ori < 3) ori = ori + 3;
+        }else{
+            ori = oriA - oriB;
+            if(ori < 0) ori = ori + 3;
+        }
+        return ori;
+    }
+
     /**
      * EdgeMult takes two EdgeCubies and multiplies them, simulating a symmetry or
      * move
@@ -1003,13 +1159,27 @@ public class RubikModel2 implements Serializable {
             if(ori >= 3){
                 inv.a[co.ordinal()].o = ori;
             }else{
-                inv.a[co.ordinal()].o = ori;
+                inv.a[co.ordinal()].o = -ori;
                 if(inv.a[co.ordinal()].o < 0) inv.a[co.ordinal()].o = inv.a[co.ordinal()].o + 3;
             }
         }
         return inv;
     }
 
+    /**
+     * This function inverts a CubieCube, so that cc * CubeInv(cc) is the
+     * solved cube
+     *
+     * @param cc - the input cube
+     * @return - the inverse cube
+     */
+    public CubieCube CubeInv(CubieCube cc){
+        CubieCube temp = new CubieCube();
+        temp.c = CornInv(cc.c);
+        temp.e = EdgeInv(cc.e);
+        return temp;
+    }
+
     /**
      * This function calculates the Corner Orientation Coordinate of a Cubie
      *
@@ -1017,25 +1187,27 @@ public class RubikModel2 implements Serializable {
      * @return - the Corner Orientation coordinate
      */
     public int CornOriCoord(CornerCubie c){
-        int s = 0;
         boolean invert = false;
-        int count = 0;
-        for(Corner co: Corner.values()){
-            if(c.a[co.ordinal()].o >= 3){
+        for(int i = 0; i < 8; i++){
+            if(c.a[i].o >= 3){
                 invert = true;
-                count++;
             }
         }
-        //if the cube is inverted, invert it back before calculating the coordinate
+        //the orientations of corners 0 to 6 are the base 3 digits, and corner 7 is left out
+        int s = 0;
         if(invert){
-            CornerCubie temp = CornMult(Symmetries[1].c, c);
-            temp = CornMult(temp, SymmetriesInv[1].c);
-            for(Corner co: Corner.values()){
-                s = s + ((temp.a[co.ordinal()].o % 3) * (int)Math.pow(3,(6 - co.ordinal())));
+            //if the cube is inverted, invert it back with S(1) * c * Sinv(1) first,
+            //working out just the orientations the two CornMults would give
+            CornerCubie sym = Symmetries[1].c;
+            CornerCubie symInv = SymmetriesInv[1].c;
+            for(int i = 0; i < 7; i++){
+                OrientedCorner from = c.a[symInv.a[i].c.ordinal()];
+                int ori = OriMult(OriMult(sym.a[from.c.ordinal()].o, from.o), symInv.a[i].o);
+                s = (s * 3) + (ori % 3);
             }
         }else{
-            for(Corner co: Corner.values()){
-                s = s + ((c.a[co.ordinal()].o % 3) * (int)Math.pow(3,(6 - co.ordinal())));
+            for(int i = 0; i < 7; i++){
+                s = (s * 3) + (c.a[i].o % 3);
             }
         }
         return s;
@@ -1048,9 +1220,10 @@ public class RubikModel2 implements Serializable {
      * @return - the Edge Orientation Coordinate
      */
     public int EdgeOriCoord(EdgeCubie e){
+        //the orientations of edges 0 to 10 are the bits, and edge 11 is left out
         int s = 0;
-        for(Edge ed: Edge.values()){
-            s = s + ((e.a[ed.ordinal()].o) * (int)Math.pow(2, (10 - ed.ordinal())));
+        for(int i = 0; i < 11; i++){
+            s = (s << 1) | e.a[i].o;
         }
         return s;
     }
@@ -1062,13 +1235,14 @@ public class RubikModel2 implements Serializable {
      * @return - the Corner Permutation Coordinate
      */
     public int CornPermCoord(CornerCubie corn){
+        //each corner adds the number of corners before it that are bigger, times i!.
+        //seen holds a bit for each corner already passed
         int x = 0;
-        for(int i = Corner.values().length - 1; i > 0; i--){
-            int s = 0;
-            for(int j = i - 1; j >= 0; j--){
-                if(corn.a[j].c.ordinal() > corn.a[i].c.ordinal()) s++;
-            }
-            x = (x + s) * i;
+        int seen = 0;
+        for(int i = 0; i < 8; i++){
+            int c = corn.a[i].c.ordinal();
+            x += Integer.bitCount(seen >>> (c + 1)) * FACTORIAL[i];
+            seen |= 1 << c;
         }
         return x;
     }
@@ -1080,13 +1254,24 @@ public class RubikModel2 implements Serializable {
      * @return - the Edge Permutation Coordinate
      */
     public int EdgePermCoord(EdgeCubie ed){
+        return EdgeRank(ed, 12);
+    }
+
+    /**
+     * This function ranks the edges in the first positions of an
+     * EdgeCubie the way CornPermCoord ranks the corners
+     *
+     * @param ed - the EdgeCubie
+     * @param count - the number of positions to rank
+     * @return - the rank
+     */
+    private static int EdgeRank(EdgeCubie ed, int count){
         int x = 0;
-        for(int i = Edge.values().length - 1; i > 0; i--){
-            int s = 0;
-            for(int j = i - 1; j >= 0; j--){
-                if(ed.a[j].e.ordinal() > ed.a[i].e.ordinal()) s++;
-            }
-            x = (x + s) * i;
+        int seen = 0;
+        for(int i = 0; i < count; i++){
+            int e = ed.a[i].e.ordinal();
+            x += Integer.bitCount(seen >>> (e + 1)) * FACTORIAL[i];
+            seen |= 1 << e;
         }
         return x;
     }
@@ -1197,6 +1382,18 @@ public class RubikModel2 implements Serializable {
         return temp;
     }
 
+    /**
+     * This function applies a move to a ByteCube without making any
+     * new objects
+     *
+     * @param cc - the input ByteCube
+     * @param move - the move index, 3 * TurnAxis + the number of quarter turns - 1
+     * @param result - where the resulting cube goes, which must not be cc
+     */
+    public void DoMove(ByteCube cc, int move, ByteCube result){
+        ByteCube.Multiply(cc, ByteCubeMove[move], result);
+    }
+
     /**
      * This function does a single symmetry to a CubieCube
      *
@@ -1207,8 +1404,15 @@ public class RubikModel2 implements Serializable {
      */
     public CubieCube DoSym(CubieCube cc, int symIndex, boolean invert){
         CubieCube temp = new CubieCube();
-        temp.c = CornSym(cc.c, symIndex, invert);
-        temp.e = EdgeSym(cc.e, symIndex, invert);
+        if(symIndex < 48){
+            //the symmetries are already multiplied out
+            CubieCube sym = invert ? SymmetriesInv[symIndex] : Symmetries[symIndex];
+            temp.c = CornMult(cc.c, sym.c);
+            temp.e = EdgeMult(cc.e, sym.e);
+        }else{
+            temp.c = CornSym(cc.c, symIndex, invert);
+            temp.e = EdgeSym(cc.e, symIndex, invert);
+        }
         return temp;
     }
 
@@ -1220,43 +1424,15 @@ public class RubikModel2 implements Serializable {
      */
     public int UDSliceCoord(CubieCube cc){
         int s = 0;
-        boolean[] occupied = {false, false, false, false, false, false, false, false, false, false, false, false};
-        for(Edge ed : Edge.values()){
-            if(cc.e.a[ed.ordinal()].e.ordinal() >= Edge.FR.ordinal()) occupied[ed.ordinal()] = true;
-        }
         int k = 3, n = 11;
         while (k >=0){
-            if(occupied[n]) k--;
-            else s = s + choose(n, k);
+            if(cc.e.a[n].e.ordinal() >= Edge.FR.ordinal()) k--;
+            else s = s + BINOMIAL[n][k];
             n--;
         }
         return s;
     }
 
-    /**
-     * This function simulates the math Choose (n choose k)
-     * @param n - choose this number
-     * @param k - from this number
-     * @return - the result
-     */
-    private int choose(int n, int k){
-        return (int)(factorial(n) / (factorial(k) * factorial(n - k)));
-    }
-
-    /**
-     * This function simulates the math factorial (n!)
-     *
-     * @param n - the number to use
-     * @return - the result
-     */
-    private int factorial(int n){
-        if(n <= 1){
-            return 1;
-        }else{
-            return n * factorial(n - 1);
-        }
-    }
-
     /**
      * This function calculates the Phase2 Edge Permutation Coordinate
      *
@@ -1264,15 +1440,7 @@ public class RubikModel2 implements Serializable {
      * @return - the Phase 2 Edge Permutation Coordinate
      */
     public int Phase2EdgePermCoord(CubieCube cc){
-        int x = 0;
-        for(int i = Edge.DB.ordinal(); i > 0; i--){
-            int s = 0;
-            for(int j = i - 1; j >= 0; j--){
-                if(cc.e.a[j].e.ordinal() > cc.e.a[i].e.ordinal()) s++;
-            }
-            x = (x + s) * i;
-        }
-        return x;
+        return EdgeRank(cc.e, Edge.DB.ordinal() + 1);
     }
 
     /**
@@ -1282,22 +1450,17 @@ public class RubikModel2 implements Serializable {
      * @return - the UDSlice Sorted Coordinate
      */
     public int UDSliceSortedCoord(CubieCube cc){
-        int i= 0;
-        Edge[] arr = new Edge[4];
-        for(Edge ed : Edge.values()){
-            Edge e = cc.e.a[ed.ordinal()].e;
-            if(e == Edge.FR || e == Edge.FL || e == Edge.BL || e == Edge.BR){
-                arr[i] = e;
-                i++;
-            }
-        }
+        //rank the slice edges in the order they are found, like CornPermCoord
         int x = 0;
-        for(int j = 3; j > 0; j--){
-            int s = 0;
-            for(int k = j - 1; k >= 0; k--){
-                if(arr[k].ordinal() > arr[j].ordinal()) s++;
+        int seen = 0;
+        int i = 0;
+        for(int j = 0; j < 12; j++){
+            int e = cc.e.a[j].e.ordinal();
+            if(e >= Edge.FR.ordinal()){
+                x += Integer.bitCount(seen >>> (e + 1)) * FACTORIAL[i];
+                seen |= 1 << e;
+                i++;
             }
-            x = (x + s) * j;
         }
         return (UDSliceCoord(cc) * 24) + x;
     }
@@ -1334,6 +1497,51 @@ public class RubikModel2 implements Serializable {
         return temp;
     }
     
+    /**
+     * This function does S(i) * CC * Sinv(i) to a ByteCube without making
+     * any new objects
+     *
+     * @param cc - the input cube
+     * @param symIdx - the symmetry index
+     * @param temp - a cube to hold S(i) * CC
+     * @param result - where the resulting cube goes
+     */
+    public void SthenSinv(ByteCube cc, int symIdx, ByteCube temp, ByteCube result){
+        ByteCube.Multiply(ByteCubeSym[symIdx], cc, temp);
+        ByteCube.Multiply(temp, ByteCubeSymInv[symIdx], result);
+    }
+
+    /**
+     * This function does Sinv(i) * CC * S(i) to a ByteCube without making
+     * any new objects
+     *
+     * @param cc - the input cube
+     * @param symIdx - the symmetry index
+     * @param temp - a cube to hold Sinv(i) * CC
+     * @param result - where the resulting cube goes
+     */
+    public void SinvThenS(ByteCube cc, int symIdx, ByteCube temp, ByteCube result){
+        ByteCube.Multiply(ByteCubeSymInv[symIdx], cc, temp);
+        ByteCube.Multiply(temp, ByteCubeSym[symIdx], result);
+    }
+
+    /**
+     * This function works out the raw FlipUDSlice coordinate of SthenSinv
+     * from the raw FlipUDSlice coordinate of a cube, without the cube
+     *
+     * @param raw - the raw FlipUDSlice coordinate, UDSlice * 2048 + Edge Orientation
+     * @param symIdx - the symmetry index
+     * @return - the raw FlipUDSlice coordinate of SthenSinv(cube, symIdx)
+     */
+    public int FlipUDSliceConj(int raw, int symIdx){
+        int slice = raw >> 11;
+        int flip = raw & 2047;
+        //edge 11 is flipped if an odd number of the others are
+        int bits = (flip << 1) | (Integer.bitCount(flip) & 1);
+        int conj = EdgeOriPermConj[(symIdx << 12) | bits] ^ EdgeOriFlipConj[(slice * 16) + symIdx];
+        return (UDSliceConj[(slice * 16) + symIdx] << 11) | (conj >> 1);
+    }
+
     /**
      * This function applies all 16 symmetries to a cubie and calculates the
      * minimum UDSlice coordinate
@@ -1342,10 +1550,10 @@ public class RubikModel2 implements Serializable {
      * @return - the minimum FlipUDSlice Coordinate
      */
     public int UDSliceRawReduce(CubieCube cc){
+        int raw = (UDSliceCoord(cc) * 2048) + EdgeOriCoord(cc.e);
         int min = Integer.MAX_VALUE;
         for(int k = 0; k < 16; k++){
-            CubieCube tempC = SthenSinv(cc, k);
-            int temp = (UDSliceCoord(tempC) * 2048) + EdgeOriCoord(tempC.e);
+            int temp = FlipUDSliceConj(raw, k);
             if(temp < min){
                 min = temp;
             }
@@ -1361,10 +1569,10 @@ public class RubikModel2 implements Serializable {
      * @return - the minimum Corner Permutation Coordinate
      */
     public int CornPermRawReduce(CubieCube cc){
+        int raw = CornPermCoord(cc.c);
         int min = Integer.MAX_VALUE;
         for(int k = 0; k < 16; k++){
-            CubieCube tempC = SthenSinv(cc, k);
-            int temp = CornPermCoord(tempC.c);
+            int temp = CornPermConj[(raw * 48) + k];
             if(temp < min){
                 min = temp;
             }
@@ -1380,11 +1588,11 @@ public class RubikModel2 implements Serializable {
      * @return - the Symindex that reduces the cube to minimum
      */
     public int SymReduce(CubieCube cc){
+        int raw = (UDSliceCoord(cc) * 2048) + EdgeOriCoord(cc.e);
         int min = Integer.MAX_VALUE;
         int minIdx = 0;
         for(int k = 0; k < 16; k++){
-            CubieCube tempC = SthenSinv(cc, k);
-            int temp = (UDSliceCoord(tempC) * 2048) + EdgeOriCoord(tempC.e);
+            int temp = FlipUDSliceConj(raw, k);
             if(temp < min){
                 min = temp;
                 minIdx = k;
@@ -1401,14 +1609,11 @@ public class RubikModel2 implements Serializable {
      * @return - the minimum SymIndex
      */
     public int CornSymReduce(CubieCube cc){
+        int raw = CornPermCoord(cc.c);
         int min = Integer.MAX_VALUE;
         int minIdx = 0;
         for(int k = 0; k < 16; k++){
-            //CubieCube tempC = new CubieCube();
-            //tempC.c = CornMult(cc.c, SymmetriesInv[k].c);
-            //tempC.e = EdgeMult(cc.e, SymmetriesInv[k].e);
-            CubieCube tempC = SthenSinv(cc, k);
-            int temp = CornPermCoord(tempC.c);
+            int temp = CornPermConj[(raw * 48) + k];
             if(temp < min){
                 min = temp;
                 minIdx = k;
@@ -1416,4 +1621,117 @@ public class RubikModel2 implements Serializable {
         }
         return minIdx;
     }
+
+    /**
+     * This function finds the key of a cube under all 48 symmetries and
+     * inversion: the 96 cubes S * CC * Sinv and S * CCinv * Sinv all get the
+     * same key, which also says which of them is the canonical one
+     *
+     * @param cc - the input CubieCube
+     * @return - the key of the cube
+     */
+    public CubeKey CanonicalKey(CubieCube cc){
+        return CanonicalKey(new ByteCube(cc));
+    }
+
+    /**
+     * This function finds the key of a cube under all 48 symmetries and
+     * inversion. The corner permutation of each of the 96 cubes is looked up
+     * in CornPermConj, and the rest is only worked out for the ones whose
+     * corner permutation is the smallest so far
+     *
+     * @param cc - the input cube
+     * @return - the key of the cube
+     */
+    public CubeKey CanonicalKey(ByteCube cc){
+        ByteCube inv = new ByteCube();
+        ByteCube.Invert(cc, inv);
+        ByteCube conj = new ByteCube();
+        int minCorners = Integer.MAX_VALUE;
+        long minEdges = Long.MAX_VALUE;
+        int minSym = 0;
+        boolean minInverse = false;
+        for(int x = 0; x < 2; x++){
+            ByteCube c = (x == 0) ? cc : inv;
+            int raw = c.CornPermCoord() * 48;
+            for(int k = 0; k < 48; k++){
+                //the corner permutation is the most significant part, so most are out already
+                if(CornPermConj[raw + k] * 2187 > minCorners){
+                    continue;
+                }
+                ConjugateCorners(c, k, conj);
+                int corners = (CornPermConj[raw + k] * 2187) + conj.CornOriCoord();
+                if(corners > minCorners){
+                    continue;
+                }
+                ConjugateEdges(c, k, conj);
+                long edges = ((long)conj.EdgePermCoord() * 2048) + conj.EdgeOriCoord();
+                if(corners < minCorners || edges < minEdges){
+                    minCorners = corners;
+                    minEdges = edges;
+                    minSym = k;
+                    minInverse = (x == 1);
+                }
+            }
+        }
+        return new CubeKey(minCorners, minEdges, minSym, minInverse);
+    }
+
+    /**
+     * This function gives the canonical cube of a key, from the cube the
+     * key was made from
+     *
+     * @param cc - the cube the key was made from, or any cube with the same key
+     * @param key - the key, whose symmetry and inversion are used
+     * @param result - where the canonical cube goes, which must not be cc
+     */
+    public void CanonicalCube(ByteCube cc, CubeKey key, ByteCube result){
+        ByteCube temp = new ByteCube();
+        if(key.inverse){
+            ByteCube.Invert(cc, temp);
+            ByteCube.Multiply(ByteCubeSym[key.sym], temp, result);
+            ByteCube.Multiply(result, ByteCubeSymInv[key.sym], temp);
+            result.set(temp);
+        }else{
+            SthenSinv(cc, key.sym, temp, result);
+        }
+    }
+
+    /**
+     * This function does the corners of S(i) * CC * Sinv(i), leaving the
+     * edges of the result alone
+     *
+     * @param cc - the input cube
+     * @param symIdx - the symmetry index
+     * @param result - where the corners go
+     */
+    private void ConjugateCorners(ByteCube cc, int symIdx, ByteCube result){
+        ByteCube sym = ByteCubeSym[symIdx];
+        ByteCube symInv = ByteCubeSymInv[symIdx];
+        for(int i = 0; i < 8; i++){
+            int from = symInv.cp[i];
+            int corner = cc.cp[from];
+            result.cp[i] = sym.cp[corner];
+            result.co[i] = (byte)OriMult(OriMult(sym.co[corner], cc.co[from]), symInv.co[i]);
+        }
+    }
+
+    /**
+     * This function does the edges of S(i) * CC * Sinv(i), leaving the
+     * corners of the result alone
+     *
+     * @param cc - the input cube
+     * @param symIdx - the symmetry index
+     * @param result - where the edges go
+     */
+    private void ConjugateEdges(ByteCube cc, int symIdx, ByteCube result){
+        ByteCube sym = ByteCubeSym[symIdx];
+        ByteCube symInv = ByteCubeSymInv[symIdx];
+        for(int i = 0; i < 12; i++){
+            int from = symInv.ep[i];
+            int edge = cc.ep[from];
+            result.ep[i] = sym.ep[edge];
+            result.eo[i] = (byte)(sym.eo[edge] ^ cc.eo[from] ^ symInv.eo[i]);
+        }
+    }
 }
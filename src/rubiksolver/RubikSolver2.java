@@ -14,290 +14,591 @@ package rubiksolver;
 /**
  * This class contains the algorithm to solve the given Rubik's Cube
  */
-import java.util.LinkedList;
 import rubiksolverdef.*;
 import rubiksolver.RubikModel2.*;
-import rubiksolver.Duple.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 //import java.io.*;
 
 public class RubikSolver2 {
 
+    //longest phase 1 solution the search will look for (God's number for phase 1 is 12)
+    private static final int MAX_PHASE1_DEPTH = 20;
+
+    //longest phase 2 solution the search will look for (God's number for phase 2 is 18)
+    private static final int MAX_PHASE2_DEPTH = 18;
+
+    //the moves allowed in phase 2, in order of move index, shared with the other solvers
+    static final int[] PHASE2_MOVES = {Move.Ux1.ordinal(), Move.Ux2.ordinal(), Move.Ux3.ordinal(), Move.Rx2.ordinal(),
+                                               Move.Fx2.ordinal(), Move.Dx1.ordinal(), Move.Dx2.ordinal(), Move.Dx3.ordinal(),
+                                               Move.Lx2.ordinal(), Move.Bx2.ordinal()};
+
+    //longest solution the search can return
+    public static final int MAX_LENGTH = MAX_PHASE1_DEPTH + MAX_PHASE2_DEPTH;
+
+    /**
+     * This creates the working storage for one solve at a time. Each thread
+     * that calls search should have its own.
+     *
+     * @return - a new search context big enough for any solution
+     */
+    public static SearchContext newContext(){
+        return new SearchContext(MAX_PHASE1_DEPTH, MAX_PHASE2_DEPTH);
+    }
+
     /**
      * This algorithm solves a given Rubik's Cube using my implementation
      * of Kociemba's Two-Phase algorithm
      *
+     * Phase 1 is an iterative deepening depth first search (IDA*) that uses
+     * the Phase1PruningTable as a lower bound on the number of moves left.
+     * Every phase 1 solution of length d is tried before any of length d + 1,
+     * and each one is handed to phase 2 until phase 2 can finish the cube.
+     *
+     * Once a solution is found it keeps going the way Kociemba intended,
+     * through longer and longer phase 1 solutions, and only looks for phase 2
+     * solutions short enough to beat the best total found so far. The search
+     * stops when a solution of at most bound.targetLength moves is found,
+     * when the deadline passes, or when no shorter solution can exist. If the
+     * deadline passes before any solution is found, the search keeps going
+     * until it has one. A targetLength of MAX_LENGTH returns the first
+     * solution found.
+     *
+     * The tables are only read, so any number of threads can search at once
+     * as long as each one uses its own context.
+     *
+     * @param ctx - the search context to work in
+     * @param bound - the state of this solve, which holds the solution afterwards
      * @param cc - the cube to solve
      * @param table - the move tables to use
      * @param flip - the FlipUDSlice table to use
      * @param prune - the pruning tables to use
      * @param model - the model to use
      * @param perm - the CornerPerm table to use
-     * @param parent - the parent window (for callbacks)
+     * @return - the length of the solution, or -1 if there is none
      */
-   public static LinkedList<Integer> solve(CubieCube cc, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model, CornerPerm perm, RubikDisplay2 parent){
-       //PHASE 1
-
-        java.util.LinkedList<Duple> queue = new java.util.LinkedList<Duple>();
-        java.util.LinkedList<Duple> visited = new java.util.LinkedList<Duple>();
-        queue.add(new Duple(model.CornOriCoord(cc.c), flip.FlipUDSliceCoord(cc) , model.EdgeOriCoord(cc.e), model.UDSliceCoord(cc), ""));
-        visited.add(new Duple(model.CornOriCoord(cc.c), flip.FlipUDSliceCoord(cc) , model.EdgeOriCoord(cc.e), model.UDSliceCoord(cc), ""));
-        boolean cont;
-        boolean solved1 = false;
-        Duple temp = null;
-        java.util.LinkedList<Integer> moveList = new java.util.LinkedList<Integer>();
-        while(!queue.isEmpty()){
-            cont = false;
-            temp = queue.removeFirst();
-            if(temp.CornOriCoord == 0 && (int)(temp.FlipUDSliceCoord / 16) == 0){
-                parent.updateText("Solved Phase 1! " + temp.backtrace);
-                solved1 = true;
+   public static int search(SearchContext ctx, SearchBound bound, CubieCube cc, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model, CornerPerm perm){
+        int start = startPhase1(ctx, cc, table, flip, prune, model);
+        ctx.searched.clear();
+        ctx.bound = bound;
+        //for each allowed length of the phase 1 solution
+        for(int depth = start; depth <= MAX_PHASE1_DEPTH && !bound.stopped(); depth++){
+            //no longer phase 1 solution can give a shorter total
+            if(depth >= bound.length.get()){
                 break;
             }
-            int oldFlip = temp.FlipUDSliceCoord;
-            int oldCorn = temp.CornOriCoord;
-            int oldEdge = temp.EdgeOriCoord;
-            int oldUD = temp.UDSliceCoord;
-            int oldstep = prune.Phase1PruningTable[(int)(oldFlip / 16)][table.CornOriSym[oldCorn][oldFlip % 16]];
-            int oldSym = oldFlip % 16;
-            System.out.println("Checking coordinates " + temp.CornOriCoord + " " + (int)(temp.FlipUDSliceCoord / 16) + " " + temp.FlipUDSliceCoord % 16 + " " + temp.backtrace + " " + oldstep);
-            //apply all possible moves to cube
-            for(TurnAxis l : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    int newMove = model.SymMove[oldSym][3 * l.ordinal() + k];
-                    int newFlipRaw = table.FlipUDSliceTwistMove[(int)(oldFlip / 16)][newMove];
-                    int UDSliceCoord = (int)(newFlipRaw / 16);
-                    int newEdgeRaw = table.EdgeOriTwistMove[oldEdge][3 * l.ordinal() + k];
-                    int newUDRaw = table.UDSliceTwistMove[oldUD][3 * l.ordinal() + k];
-                    int newUDSlice = (newUDRaw * 2048) + newEdgeRaw;
-                    int newSym = model.SymComb[oldSym][newFlipRaw % 16];
-                    //adjust symmetry index if needed!
-                    if(table.FlipUDSliceSymInv[UDSliceCoord][newSym] != newUDSlice){
-                        int j = 0;
-                        for(j = 0; j < 16; j++){
-                            if(table.FlipUDSliceSymInv[UDSliceCoord][j] == newUDSlice){
-                                newSym = j;
-                                break;
-                            }
-                        }
-                        if(j == 16){
-                            System.out.println("Error fixing Symmetry Index!");
-                        }
-                    }
-                    int newCornRaw = table.CornOriTwistMove[oldCorn][3 * l.ordinal() + k];
-                    int newCornSym = table.CornOriSym[newCornRaw][newSym];
-                    int newstep = prune.Phase1PruningTable[(int)(newFlipRaw / 16)][newCornSym];
-                    //if found a cube with a lower pruning depth, go with it
-                    if(newstep < oldstep){
-                        String tempMove = Move.values()[3 * l.ordinal() + k].name();
-                        Duple tempD = new Duple(newCornRaw, (UDSliceCoord * 16) + newSym , newEdgeRaw, newUDRaw, temp.backtrace+" "+tempMove);
-                        if(!visited.contains(tempD)){
-                            moveList.add(3 * l.ordinal() + k);
-                            queue.add(tempD);
-                            visited.add(tempD);
-                            cont = true;
-                        }
-                    }
-                    if(cont){
-                        break;
-                    }
-                }
-                if(cont){
-                    break;
+            if(bound.listener != SolveListener.NONE){
+                bound.listener.depthStarted(1, depth);
+            }
+            searchPhase1(ctx, bound, 0, depth, table, prune, model, perm);
+        }
+        return bound.found() ? bound.length.get() : -1;
+    }
+
+    /**
+     * This does the same search as search(), but splits each depth of phase 1
+     * into one task for every first two moves, and runs them on a fork/join
+     * pool. The tasks all share the bound, so each one prunes against the
+     * best solution any of them has found.
+     *
+     * @param pool - the pool to run the tasks on
+     * @param contexts - the search context for each thread of the pool
+     * @param bound - the state of this solve, which holds the solution afterwards
+     * @param cc - the cube to solve
+     * @param table - the move tables to use
+     * @param flip - the FlipUDSlice table to use
+     * @param prune - the pruning tables to use
+     * @param model - the model to use
+     * @param perm - the CornerPerm table to use
+     * @return - the length of the solution, or -1 if there is none
+     */
+   public static int searchParallel(ForkJoinPool pool, ThreadLocal<SearchContext> contexts, SearchBound bound, CubieCube cc, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model, CornerPerm perm){
+        SearchContext ctx = contexts.get();
+        int start = startPhase1(ctx, cc, table, flip, prune, model);
+        for(int depth = start; depth <= MAX_PHASE1_DEPTH && !bound.stopped(); depth++){
+            if(depth >= bound.length.get()){
+                break;
+            }
+            if(bound.listener != SolveListener.NONE){
+                bound.listener.depthStarted(1, depth);
+            }
+            //split off the first two moves, but always leave at least one move to the task
+            int base = Math.min(2, Math.max(depth - 1, 0));
+            java.util.ArrayList<Phase1Task> tasks = new java.util.ArrayList<Phase1Task>();
+            if(base == 0){
+                tasks.add(new Phase1Task(contexts, bound, cc, new int[0], depth, table, flip, prune, model, perm));
+            }else{
+                int[] prefix = new int[base];
+                addTasks(tasks, prefix, 0, contexts, bound, cc, depth, table, flip, prune, model, perm);
+            }
+            pool.invoke(new Phase1Batch(tasks));
+        }
+        return bound.found() ? bound.length.get() : -1;
+    }
+
+    /**
+     * Adds a task for every allowed sequence of first moves
+     *
+     * @param tasks - the list to add to
+     * @param prefix - the first moves, filled in up to n
+     * @param n - how many of the first moves are filled in
+     */
+    private static void addTasks(java.util.ArrayList<Phase1Task> tasks, int[] prefix, int n, ThreadLocal<SearchContext> contexts, SearchBound bound, CubieCube cc, int depth, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model, CornerPerm perm){
+        if(n == prefix.length){
+            tasks.add(new Phase1Task(contexts, bound, cc, prefix.clone(), depth, table, flip, prune, model, perm));
+            return;
+        }
+        for(int m = 0; m < 18; m++){
+            if(n > 0){
+                if(Redundant(prefix[n - 1], m)){
+                    continue;
                 }
             }
+            prefix[n] = m;
+            addTasks(tasks, prefix, n + 1, contexts, bound, cc, depth, table, flip, prune, model, perm);
         }
-        if(!solved1){
-            parent.updateText("Cannot Solve Phase 1!");
-            return null;
+    }
+
+    /**
+     * This task searches every phase 1 solution of one length that starts
+     * with the given moves
+     */
+    private static class Phase1Task extends RecursiveAction {
+        private final ThreadLocal<SearchContext> contexts;
+        private final SearchBound bound;
+        private final CubieCube cc;
+        private final int[] prefix;
+        private final int depth;
+        private final TwistMoveTable table;
+        private final FlipUDSlice flip;
+        private final PruningTables prune;
+        private final RubikModel2 model;
+        private final CornerPerm perm;
+
+        Phase1Task(ThreadLocal<SearchContext> contexts, SearchBound bound, CubieCube cc, int[] prefix, int depth, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model, CornerPerm perm){
+            this.contexts = contexts;
+            this.bound = bound;
+            this.cc = cc;
+            this.prefix = prefix;
+            this.depth = depth;
+            this.table = table;
+            this.flip = flip;
+            this.prune = prune;
+            this.model = model;
+            this.perm = perm;
         }
-        //manually restore cube to Phase 1
-        CubieCube tempCube = cc;
-        int size = moveList.size();
-        for(int i = 0; i < size; i++){
-            int move = moveList.get(i);
-            for(int j = 0; j < (move % 3) + 1; j++){
-                tempCube = model.DoMove(tempCube, TurnAxis.values()[(int)(move / 3)]);
+
+        protected void compute(){
+            if(bound.stopped() || depth >= bound.length.get()){
+                return;
+            }
+            SearchContext ctx = contexts.get();
+            //the searched set is only valid for one solve
+            if(ctx.bound != bound){
+                ctx.searched.clear();
+                ctx.bound = bound;
+            }
+            startPhase1(ctx, cc, table, flip, prune, model);
+            for(int n = 0; n < prefix.length; n++){
+                ctx.moves[n] = prefix[n];
+                if(DoPhase1Move(ctx, n, prefix[n], table, prune, model) > depth - n - 1){
+                    return;
+                }
             }
+            searchPhase1(ctx, bound, prefix.length, depth, table, prune, model, perm);
         }
-        if(model.CornOriCoord(tempCube.c) != 0 || model.EdgeOriCoord(tempCube.e) != 0 || model.UDSliceCoord(tempCube) != 0){
-            System.out.println("Cube not restored to Phase2!");
-        }else{
-            System.out.println("Cube restored to Phase2!");
+    }
+
+    /**
+     * This task runs a list of Phase1Tasks and waits for all of them
+     */
+    private static class Phase1Batch extends RecursiveAction {
+        private final java.util.List<Phase1Task> tasks;
+
+        Phase1Batch(java.util.List<Phase1Task> tasks){
+            this.tasks = tasks;
         }
 
-        //PHASE 2
-        java.util.LinkedList<Tuple> queue2 = new java.util.LinkedList<Tuple>();
-        java.util.LinkedList<Tuple> visited2 = new java.util.LinkedList<Tuple>();
-        queue2.add(new Tuple(perm.CornPermCoord(tempCube), model.Phase2EdgePermCoord(tempCube), model.UDSliceSortedCoord(tempCube), model.CornPermCoord(tempCube.c), "", new java.util.LinkedList<Integer>()));
-        visited2.add(new Tuple(perm.CornPermCoord(tempCube), model.Phase2EdgePermCoord(tempCube), model.UDSliceSortedCoord(tempCube), model.CornPermCoord(tempCube.c), "", new java.util.LinkedList<Integer>()));
-        boolean solved2 = false;
-        Tuple temp2 = null;
-        java.util.LinkedList<Integer> moveList2 = new java.util.LinkedList<Integer>();
-        int backup = 0;
-        //while(!queue2.isEmpty()){
-        //make sure that we haven't hit a snag
-        while(backup < 18){
-            //if there is nothing in the queue, we need to backtrace to generate more cubes
-            if(queue2.isEmpty()){
-               backup++;
-               queue2.add(new Tuple(perm.CornPermCoord(tempCube), model.Phase2EdgePermCoord(tempCube), model.UDSliceSortedCoord(tempCube), model.CornPermCoord(tempCube.c), "", new java.util.LinkedList<Integer>()));
-               for(int i = 0; i < backup; i++){
-                   if(i == 0){
-                       System.out.println("Backing up " + backup + " Steps");
-                   }
-                   int sizeofQ = queue2.size();
-                   //apply number of moves to each element in the queue
-                   for(int q = 0; q < sizeofQ; q++){
-                        temp2 = queue2.removeFirst();
-                        int oldUDSlice = temp2.UDSliceCoord;
-                        int oldCornPerm = temp2.CornPermCoord;
-                        int oldEdgePerm = temp2.EdgePermCoord;
-                        int oldCornPermRaw = temp2.CornPermRawCoord;
-                        int oldstep = prune.Phase2PruningTable[(int)(oldCornPerm / 16)][table.P2EdgePermSym[oldEdgePerm][oldCornPerm % 16]];
-                        int oldSym = oldCornPerm % 16;
-                        System.out.println("Backing up coordinates " + temp2.EdgePermCoord + " " + (int)(temp2.CornPermCoord / 16) + " " + temp2.CornPermCoord % 16 + " " + temp2.UDSliceCoord + " " + temp2.backtrace + " " + oldstep);
-                        //apply all moves to cubes in the queue
-                        for(TurnAxis l : TurnAxis.values()){
-                            if(temp2.moves.size() > 0){
-                                if((int)(temp2.moves.getLast() / 3) == l.ordinal()){
-                                    continue;
-                                }
-                            }
-                            if(temp2.moves.size() > 1){
-                                if(((int)(temp2.moves.getLast() / 3)) == ((l.ordinal() + 3) % 6) && ((int)(temp2.moves.get(temp2.moves.size() - 2) / 3)) == l.ordinal()){
-                                    continue;
+        protected void compute(){
+            invokeAll(tasks);
+        }
+    }
 
-                                }
-                            }
-                            for(int k = 0; k < 3; k++){
-                                if(l != TurnAxis.U && l != TurnAxis.D){
-                                    if(k != 1){
-                                        continue;
-                                    }
-                                }
-                                int newMove = model.SymMove[oldSym][3 * l.ordinal() + k];
-                                int newCornPermRaw = table.P2CornPermTwistMove[(int)(oldCornPerm / 16)][newMove];
-                                int newCornPerm = (int)(newCornPermRaw / 16);
-                                int newCornPermNoSym = table.P2CornPermRawTwistMove[oldCornPermRaw][3 * l.ordinal() + k];
-                                int newUDSliceRaw = table.P2UDSliceTwistMove[oldUDSlice][3 * l.ordinal() + k];
-                                int newSym = model.SymComb[oldSym][newCornPermRaw % 16];
-                                //adjust symmetry index if needed
-                                if(table.P2CornPermSymInv[newCornPerm][newSym] != newCornPermNoSym){
-                                    int j = 0;
-                                    for(j = 0; j < 16; j++){
-                                        if(table.P2CornPermSymInv[newCornPerm][j] == newCornPermNoSym){
-                                            newSym = j;
-                                            break;
-                                        }
-                                    }
-                                    if(j == 16){
-                                        System.out.println("Error fixing Symmetry Index!");
-                                    }
-                                }
-                                int newEdgePermRaw = table.P2EdgePermTwistMove[oldEdgePerm][3 * l.ordinal() + k];
-                                int newEdgePermSym = table.P2EdgePermSym[newEdgePermRaw][newSym];
-                                int newstep = prune.Phase2PruningTable[(int)(newCornPermRaw / 16)][newEdgePermSym];
-                                if(newstep >= oldstep){
-                                    String tempMove = Move.values()[3 * l.ordinal() + k].name();
-                                    java.util.LinkedList<Integer> tempMoveList = new java.util.LinkedList<Integer>(temp2.moves);
-                                    tempMoveList.add(3 * l.ordinal() + k);
-                                    Tuple tempT = new Tuple((newCornPerm * 16) + newSym, newEdgePermRaw, newUDSliceRaw, newCornPermNoSym, temp2.backtrace+" "+tempMove, tempMoveList);
-                                    if(i == backup - 1){
-                                        //on last step, check if cube has already been visited
-                                        if(!visited2.contains(tempT)){
-                                            queue2.addLast(tempT);
-                                            visited2.add(tempT);
-                                        }
-                                    }else{
-                                        queue2.addLast(tempT);
-                                    }
-                                }
-                            }
-                        }
-                   }
-               }
-            } //end of backup
-            //if nothing added, backup further
-            if(queue2.isEmpty()){
-                continue;
+    /**
+     * This finds the fewest moves the pruning table says a cube needs to
+     * reach the phase 2 group
+     *
+     * @param ctx - the search context to work in
+     * @param cc - the cube
+     * @return - the pruning depth of the cube in phase 1
+     */
+    public static int Phase1Depth(SearchContext ctx, CubieCube cc, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model){
+        return startPhase1(ctx, cc, table, flip, prune, model);
+    }
+
+    /**
+     * This finds the fewest moves the pruning table says a cube in the
+     * phase 2 group needs to be solved
+     *
+     * @param ctx - the search context to work in
+     * @param cc - the cube, which must be in the phase 2 group
+     * @return - the pruning depth of the cube in phase 2
+     */
+    public static int Phase2Depth(SearchContext ctx, CubieCube cc, TwistMoveTable table, PruningTables prune, RubikModel2 model, CornerPerm perm){
+        return startPhase2(ctx, perm.CornPermCoord(cc), model.CornPermCoord(cc.c), model.Phase2EdgePermCoord(cc), model.UDSliceSortedCoord(cc), MAX_PHASE2_DEPTH, table, prune, model);
+    }
+
+    /**
+     * This fills in the phase 1 coordinates of the cube at the start of the path
+     *
+     * @param ctx - the search context to work in
+     * @param cc - the cube to solve
+     * @return - the pruning depth of the cube, which is the shortest phase 1 solution possible
+     */
+    private static int startPhase1(SearchContext ctx, CubieCube cc, TwistMoveTable table, FlipUDSlice flip, PruningTables prune, RubikModel2 model){
+        ctx.corn[0] = model.CornOriCoord(cc.c);
+        ctx.flipUD[0] = flip.FlipUDSliceCoord(cc);
+        ctx.edge[0] = model.EdgeOriCoord(cc.e);
+        ctx.ud[0] = model.UDSliceCoord(cc);
+        ctx.cubes[0].set(cc);
+        ctx.replayed = 0;
+        PruningTable prune1 = prune.Phase1PruningTable;
+        int stored = prune1.get((int)(ctx.flipUD[0] / 16), table.CornOriSym[(ctx.corn[0] * TwistMoveTable.SYMS) + (ctx.flipUD[0] % 16)]);
+        if(prune1.exact()){
+            ctx.dist[0] = stored;
+            return stored;
+        }
+        //only the distance mod 3 is known, so walk towards the goal one move at a time and count
+        //the moves. Any starting guess with the right value mod 3 finds the same moves.
+        ctx.dist[0] = (3 * MAX_PHASE1_DEPTH) + stored;
+        int n = 0;
+        while(n < MAX_PHASE1_DEPTH){
+            int m = 0;
+            while(m < 18 && DoPhase1Move(ctx, n, m, table, prune, model) != ctx.dist[n] - 1){
+                m++;
             }
-            temp2 = queue2.removeFirst();
-            if(temp2.moves.size() >= 18){
-                continue;
+            if(m == 18){
+                break;
             }
-            if(temp2.EdgePermCoord == 0 && temp2.UDSliceCoord == 0 && (int)(temp2.CornPermCoord / 16) == 0){
-                parent.updateText("Solved Phase 2! " + temp2.backtrace);
-                solved2 = true;
-                moveList.addAll(temp2.moves);
+            n++;
+        }
+        ctx.dist[0] = n;
+        return n;
+    }
+
+    /**
+     * This applies a move to the cube at depth n of the phase 1 path, and
+     * stores the new coordinates at depth n + 1
+     *
+     * @param ctx - the search context to work in
+     * @param n - the depth of the cube to move
+     * @param m - the move index
+     * @return - the pruning depth of the new cube
+     */
+    private static int DoPhase1Move(SearchContext ctx, int n, int m, TwistMoveTable table, PruningTables prune, RubikModel2 model){
+        int oldFlip = ctx.flipUD[n];
+        int oldSym = oldFlip % 16;
+        int newMove = model.SymMove[oldSym][m];
+        int newFlipRaw = table.FlipUDSliceTwistMove[((int)(oldFlip / 16) * TwistMoveTable.MOVES) + newMove];
+        int UDSliceCoord = (int)(newFlipRaw / 16);
+        int newEdgeRaw = table.EdgeOriTwistMove[(ctx.edge[n] * TwistMoveTable.MOVES) + m];
+        int newUDRaw = table.UDSliceTwistMove[(ctx.ud[n] * TwistMoveTable.MOVES) + m];
+        //the raw coordinate says which symmetry of the new class the cube is
+        int newSym = table.FlipUDSliceRawSym[(newUDRaw * 2048) + newEdgeRaw];
+        int newCornRaw = table.CornOriTwistMove[(ctx.corn[n] * TwistMoveTable.MOVES) + m];
+        ctx.corn[n + 1] = newCornRaw;
+        ctx.flipUD[n + 1] = (UDSliceCoord * 16) + newSym;
+        ctx.edge[n + 1] = newEdgeRaw;
+        ctx.ud[n + 1] = newUDRaw;
+        int newstep = prune.Phase1PruningTable.depth(UDSliceCoord, table.CornOriSym[(newCornRaw * TwistMoveTable.SYMS) + newSym], ctx.dist[n]);
+        ctx.dist[n + 1] = newstep;
+        return newstep;
+    }
+
+    /**
+     * This searches every phase 1 solution of the given length that starts
+     * with the first base moves already in ctx.moves, and hands each one to
+     * phase 2. Any solution better than the best in the bound is offered to it.
+     *
+     * @param ctx - the search context to work in, with the first base moves and coordinates filled in
+     * @param bound - the state of this solve
+     * @param base - how many moves at the start of the path are fixed
+     * @param depth - the length of the phase 1 solutions to look for
+     */
+    private static void searchPhase1(SearchContext ctx, SearchBound bound, int base, int depth, TwistMoveTable table, PruningTables prune, RubikModel2 model, CornerPerm perm){
+        int[] moves = ctx.moves;
+        SolveListener listener = bound.listener;
+        boolean tracing = listener != SolveListener.NONE;
+        ctx.nodes = 0;
+        int n = base;
+        moves[base] = -1;
+        while(n >= base && !bound.stopped()){
+            ctx.nodes++;
+            //check the clock every so often once there is something to return
+            if((ctx.nodes & 255) == 0 && bound.found() && System.nanoTime() - bound.deadline > 0){
+                bound.timeOut();
                 break;
             }
-            int oldUDSlice = temp2.UDSliceCoord;
-            int oldCornPerm = temp2.CornPermCoord;
-            int oldEdgePerm = temp2.EdgePermCoord;
-            int oldCornPermRaw = temp2.CornPermRawCoord;
-            int oldstep = prune.Phase2PruningTable[(int)(oldCornPerm / 16)][table.P2EdgePermSym[oldEdgePerm][oldCornPerm % 16]];
-            int oldSym = oldCornPerm % 16;
-            System.out.println("Checking coordinates " + temp2.EdgePermCoord + " " + (int)(temp2.CornPermCoord / 16) + " " + temp2.CornPermCoord % 16 + " " + temp2.UDSliceCoord + " " + temp2.backtrace + " " + oldstep);
-            //apply all possible moves to cube
-            for(TurnAxis l : TurnAxis.values()){
-                if(temp2.moves.size() > 0){
-                    if((int)(temp2.moves.getLast() / 3) == l.ordinal()){
-                        continue;
+            //a cube already in phase 2 has the empty phase 1 solution
+            if(depth > 0 || n > 0 || moves[0] >= 0){
+                //move on to the next move at this depth
+                int m = ++moves[n];
+                if(m == 18){
+                    n--;
+                    continue;
+                }
+                //never turn the same face twice in a row, and only turn opposite faces in one order
+                if(n > 0 && Redundant(moves[n - 1], m)){
+                    moves[n] = 3 * (int)(m / 3) + 2;
+                    continue;
+                }
+                int newstep = DoPhase1Move(ctx, n, m, table, prune, model);
+                //the pruning table says this cube cannot be finished in the moves left
+                if(newstep > depth - n - 1){
+                    continue;
+                }
+                if(n + 1 < depth){
+                    n++;
+                    moves[n] = -1;
+                    if(tracing){
+                        listener.nodeExpanded(1, moves, n, newstep);
                     }
+                    continue;
+                }
+                //a phase 1 solution may not end in a phase 2 move, since a shorter one would exist
+                if(newstep != 0 || IsPhase2Move(m)){
+                    continue;
                 }
-                if(temp2.moves.size() > 1){
-                    if(((int)(temp2.moves.getLast() / 3)) == ((l.ordinal() + 3) % 6) && ((int)(temp2.moves.get(temp2.moves.size() - 2) / 3)) == l.ordinal()){
-                        continue;
+            }else{
+                moves[0] = 17;
+            }
+            if(tracing){
+                listener.phaseComplete(1, moves, depth);
+            }
 
-                    }
+            //only a phase 2 solution that beats the best total is any use
+            int maxDepth2 = Math.min(MAX_PHASE2_DEPTH, bound.length.get() - depth - 1);
+            int lastAxis = (depth > 0) ? (int)(moves[depth - 1] / 3) : -1;
+            ByteCube tempCube = Replay(ctx, depth, model);
+            int cornRaw = tempCube.CornPermCoord();
+            int edgePerm = tempCube.Phase2EdgePermCoord();
+            int udSorted = tempCube.UDSliceSortedCoord();
+            //phase 1 solutions come in order of length and the best total only drops, so a
+            //phase 2 start already searched from here can only have been given a larger budget
+            long key = ((((long)cornRaw << 16 | edgePerm) << 5 | udSorted) << 3) | (lastAxis + 1);
+            if(!ctx.searched.add(key)){
+                continue;
+            }
+            System.arraycopy(moves, 0, ctx.best, 0, depth);
+            int length2 = searchPhase2(ctx, depth, perm.RawToCornPerm[cornRaw], cornRaw, edgePerm, udSorted, lastAxis, maxDepth2, listener, table, prune, model);
+            if(length2 >= 0){
+                if(tracing){
+                    listener.phaseComplete(2, ctx.best, depth + length2);
                 }
-                for(int k = 0; k < 3; k++){
-                    if(l != TurnAxis.U && l != TurnAxis.D){
-                        if(k != 1){
-                            continue;
-                        }
-                    }
-                    int newMove = model.SymMove[oldSym][3 * l.ordinal() + k];
-                    int newCornPermRaw = table.P2CornPermTwistMove[(int)(oldCornPerm / 16)][newMove];
-                    int newCornPerm = (int)(newCornPermRaw / 16);
-                    int newCornPermNoSym = table.P2CornPermRawTwistMove[oldCornPermRaw][3 * l.ordinal() + k];
-                    int newUDSliceRaw = table.P2UDSliceTwistMove[oldUDSlice][3 * l.ordinal() + k];
-                    int newSym = model.SymComb[oldSym][newCornPermRaw % 16];
-                    if(table.P2CornPermSymInv[newCornPerm][newSym] != newCornPermNoSym){
-                        int j = 0;
-                        for(j = 0; j < 16; j++){
-                            if(table.P2CornPermSymInv[newCornPerm][j] == newCornPermNoSym){
-                                newSym = j;
-                                break;
-                            }
-                        }
-                        if(j == 16){
-                            System.out.println("Error fixing Symmetry Index!");
-                        }
-                    }
-                    int newEdgePermRaw = table.P2EdgePermTwistMove[oldEdgePerm][3 * l.ordinal() + k];
-                    int newEdgePermSym = table.P2EdgePermSym[newEdgePermRaw][newSym];
-                    int newstep = prune.Phase2PruningTable[(int)(newCornPermRaw / 16)][newEdgePermSym];
-                    //add all cubes with a lower pruning depth to the queue
-                    if(newstep < oldstep){
-                        String tempMove = Move.values()[3 * l.ordinal() + k].name();
-                        java.util.LinkedList<Integer> tempMoveList = new java.util.LinkedList<Integer>(temp2.moves);
-                        tempMoveList.add(3 * l.ordinal() + k);
-                        Tuple tempT = new Tuple((newCornPerm * 16) + newSym, newEdgePermRaw, newUDSliceRaw, newCornPermNoSym, temp2.backtrace+" "+tempMove, tempMoveList);
-                        if(!visited2.contains(tempT)){
-                            queue2.addFirst(tempT);
-                            visited2.add(tempT);
-                        }
+                bound.offer(ctx.best, depth + length2, depth);
+                //the rest of this depth is no use unless it is shorter than the best
+                if(depth >= bound.length.get()){
+                    break;
+                }
+            }
+        }
+        bound.nodes.addAndGet(ctx.nodes);
+    }
+
+    /**
+     * This works out the cube at the end of the phase 1 path in ctx.moves.
+     * Phase 1 solutions come in the order of a depth first search, so one
+     * mostly differs from the last only in its final few moves, and only
+     * those are replayed onto the cubes kept from the last one.
+     *
+     * @param ctx - the search context to work in, with the solution in ctx.moves
+     * @param depth - the length of the phase 1 solution
+     * @return - the cube after the solution, which belongs to ctx
+     */
+    private static ByteCube Replay(SearchContext ctx, int depth, RubikModel2 model){
+        int i = 0;
+        while(i < ctx.replayed && i < depth && ctx.cubeMoves[i] == ctx.moves[i]){
+            i++;
+        }
+        for(; i < depth; i++){
+            model.DoMove(ctx.cubes[i], ctx.moves[i], ctx.cubes[i + 1]);
+            ctx.cubeMoves[i] = ctx.moves[i];
+        }
+        ctx.replayed = depth;
+        return ctx.cubes[depth];
+    }
+
+    /**
+     * Checks whether a move is never worth making after another: turning
+     * the same face twice in a row, or opposite faces in the wrong order
+     *
+     * @param last - the move before
+     * @param m - the move
+     * @return - true if the move can be skipped
+     */
+    static boolean Redundant(int last, int m){
+        int lastAxis = (int)(last / 3);
+        return (int)(m / 3) == lastAxis || (int)(m / 3) == lastAxis - 3;
+    }
+
+    /**
+     * Checks to see if a move keeps a cube inside the Phase 2 group
+     *
+     * @param move - the move index
+     * @return - true for any U or D turn and for the other half turns
+     */
+    static boolean IsPhase2Move(int move){
+        int axis = (int)(move / 3);
+        return axis == TurnAxis.U.ordinal() || axis == TurnAxis.D.ordinal() || move % 3 == 1;
+    }
+
+    /**
+     * Lists the moves allowed in Phase 2
+     *
+     * @return - a copy of the move indexes, in order
+     */
+    public static int[] Phase2Moves(){
+        return PHASE2_MOVES.clone();
+    }
+
+    /**
+     * This finds a shortest Phase 2 solution of at most maxDepth moves using
+     * iterative deepening, with the Phase2PruningTable as a lower bound.
+     * The moves are written into ctx.best after the phase 1 solution.
+     *
+     * @param ctx - the search context to work in, with the phase 1 solution in ctx.best
+     * @param length1 - the length of the phase 1 solution
+     * @param cornPerm - the Corner Permutation Sym Coordinate
+     * @param cornRaw - the raw Corner Permutation Coordinate
+     * @param edgePerm - the Phase 2 Edge Permutation Coordinate
+     * @param udSorted - the UDSlice Sorted Coordinate
+     * @param lastAxis - the axis of the last phase 1 move, or -1
+     * @param maxDepth - the longest solution to look for
+     * @param listener - who to tell about the progress of the solve
+     * @param table - the move tables to use
+     * @param prune - the pruning tables to use
+     * @param model - the model to use
+     * @return - the length of the Phase 2 solution, or -1 if there is no solution that short
+     */
+    private static int searchPhase2(SearchContext ctx, int length1, int cornPerm, int cornRaw, int edgePerm, int udSorted, int lastAxis, int maxDepth, SolveListener listener, TwistMoveTable table, PruningTables prune, RubikModel2 model){
+        if(maxDepth < 0){
+            return -1;
+        }
+        int start = startPhase2(ctx, cornPerm, cornRaw, edgePerm, udSorted, maxDepth, table, prune, model);
+        if(start == 0 && udSorted == 0){
+            return 0;
+        }
+        int[] ud = ctx.ud2;
+        int[] moves = ctx.moves2;
+        int[] path = ctx.best;
+        boolean tracing = listener != SolveListener.NONE;
+
+        for(int depth = Math.max(start, 1); depth <= maxDepth; depth++){
+            if(tracing){
+                listener.depthStarted(2, depth);
+            }
+            int n = 0;
+            moves[0] = -1;
+            while(n >= 0){
+                int idx = ++moves[n];
+                if(idx == PHASE2_MOVES.length){
+                    n--;
+                    continue;
+                }
+                int m = PHASE2_MOVES[idx];
+                //a move on the last phase 1 axis stands in for that move, and -3 for none at all
+                int prev = (n > 0) ? PHASE2_MOVES[moves[n - 1]] : 3 * lastAxis;
+                if(Redundant(prev, m)){
+                    continue;
+                }
+                int newstep = DoPhase2Move(ctx, n, m, table, prune, model);
+                if(newstep > depth - n - 1){
+                    continue;
+                }
+                path[length1 + n] = m;
+                if(n + 1 < depth){
+                    n++;
+                    moves[n] = -1;
+                    if(tracing){
+                        listener.nodeExpanded(2, path, length1 + n, newstep);
                     }
+                    continue;
+                }
+                if(newstep == 0 && ud[n + 1] == 0){
+                    return depth;
                 }
             }
         }
-        if(!solved2){
-            parent.updateText("Cannot Solve Phase 2!");
-            return null;
+        return -1;
+    }
+
+    /**
+     * This fills in the phase 2 coordinates of the cube at the start of the path
+     *
+     * @param ctx - the search context to work in
+     * @param cornPerm - the Corner Permutation Sym Coordinate
+     * @param cornRaw - the raw Corner Permutation Coordinate
+     * @param edgePerm - the Phase 2 Edge Permutation Coordinate
+     * @param udSorted - the UDSlice Sorted Coordinate
+     * @param maxDepth - the longest solution that will be looked for
+     * @return - the pruning depth of the cube, or something more than maxDepth if it is more than that
+     */
+    private static int startPhase2(SearchContext ctx, int cornPerm, int cornRaw, int edgePerm, int udSorted, int maxDepth, TwistMoveTable table, PruningTables prune, RubikModel2 model){
+        ctx.corn2[0] = cornPerm;
+        ctx.raw2[0] = cornRaw;
+        ctx.edge2[0] = edgePerm;
+        ctx.ud2[0] = udSorted;
+        PruningTable prune2 = prune.Phase2PruningTable;
+        int stored = prune2.get((int)(cornPerm / 16), table.P2EdgePermSym[(edgePerm * TwistMoveTable.SYMS) + (cornPerm % 16)]);
+        if(prune2.exact()){
+            ctx.dist2[0] = stored;
+            return stored;
         }
-        return moveList;
-}
+        //the same walk towards the goal as in startPhase1, but there is no need to
+        //walk further than the search would go
+        ctx.dist2[0] = (3 * MAX_PHASE2_DEPTH) + stored;
+        int n = 0;
+        while(n <= maxDepth && n < MAX_PHASE2_DEPTH){
+            int idx = 0;
+            while(idx < PHASE2_MOVES.length && DoPhase2Move(ctx, n, PHASE2_MOVES[idx], table, prune, model) != ctx.dist2[n] - 1){
+                idx++;
+            }
+            if(idx == PHASE2_MOVES.length){
+                break;
+            }
+            n++;
+        }
+        ctx.dist2[0] = n;
+        return n;
+    }
+
+    /**
+     * This applies a move to the cube at depth n of the phase 2 path, and
+     * stores the new coordinates at depth n + 1
+     *
+     * @param ctx - the search context to work in
+     * @param n - the depth of the cube to move
+     * @param m - the move index, which must be a phase 2 move
+     * @return - the pruning depth of the new cube
+     */
+    private static int DoPhase2Move(SearchContext ctx, int n, int m, TwistMoveTable table, PruningTables prune, RubikModel2 model){
+        int oldCornPerm = ctx.corn2[n];
+        int oldSym = oldCornPerm % 16;
+        int newMove = model.SymMove[oldSym][m];
+        int newCornPermRaw = table.P2CornPermTwistMove[((int)(oldCornPerm / 16) * TwistMoveTable.MOVES) + newMove];
+        int newCornPerm = (int)(newCornPermRaw / 16);
+        int newCornPermNoSym = table.P2CornPermRawTwistMove[(ctx.raw2[n] * TwistMoveTable.MOVES) + m];
+        //the raw coordinate says which symmetry of the new class the cube is
+        int newSym = table.P2CornPermRawSym[newCornPermNoSym];
+        int newEdgePermRaw = table.P2EdgePermTwistMove[(ctx.edge2[n] * TwistMoveTable.MOVES) + m];
+        ctx.corn2[n + 1] = (newCornPerm * 16) + newSym;
+        ctx.raw2[n + 1] = newCornPermNoSym;
+        ctx.edge2[n + 1] = newEdgePermRaw;
+        ctx.ud2[n + 1] = table.P2UDSliceTwistMove[(ctx.ud2[n] * TwistMoveTable.MOVES) + m];
+        int newstep = prune.Phase2PruningTable.depth(newCornPerm, table.P2EdgePermSym[(newEdgePermRaw * TwistMoveTable.SYMS) + newSym], ctx.dist2[n]);
+        ctx.dist2[n + 1] = newstep;
+        return newstep;
+    }
 
 
 
@@ -0,0 +1,222 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class holds the state of one solve that is shared by everything
+ * searching it: the best solution so far, when to stop, and how many nodes
+ * have been visited. When several threads search the same cube, they all
+ * prune against the length stored here, so a solution found by one thread
+ * makes every other thread's search smaller right away.
+ *
+ * A bound can also be a view of another bound for a search of a rotated or
+ * inverted copy of the cube. Its solutions are turned back into moves on
+ * the original cube before they are recorded in the shared bound.
+ */
+public class SearchBound {
+    //length of the best solution so far, or more than RubikSolver2.MAX_LENGTH if there is none
+    public final AtomicInteger length;
+    //a solution this short is good enough
+    public final int targetLength;
+    //when to give up improving, as a System.nanoTime() value
+    public final long deadline;
+    //phase 1 nodes visited by all of the searches
+    public final AtomicLong nodes;
+    //who to tell about the progress of the solve
+    public final SolveListener listener;
+
+    //the bound that holds the solution, which is this one unless this is a view
+    private final SearchBound shared;
+    //the move on the original cube for each move on the searched cube, or null for the same move
+    private final int[] moveMap;
+    //whether the searched cube is the inverse of the original cube
+    private final boolean inverse;
+    //whether the moves found are the same moves on the original cube, so a phase 1
+    //solution of the searched cube is one of the original cube too
+    private final boolean samePhase1;
+
+    private volatile boolean stop;
+    private volatile boolean timedOut;
+    private final int[] moves;
+    private int phase1Length;
+
+    /**
+     * This constructor creates the state for a new solve
+     *
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     */
+    public SearchBound(int targetLength, long deadline){
+        this(targetLength, deadline, SolveListener.NONE);
+    }
+
+    /**
+     * This constructor creates the state for a new solve that is being watched
+     *
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param listener - who to tell about the progress of the solve
+     */
+    public SearchBound(int targetLength, long deadline, SolveListener listener){
+        this.length = new AtomicInteger(RubikSolver2.MAX_LENGTH + 1);
+        this.targetLength = targetLength;
+        this.deadline = deadline;
+        this.nodes = new AtomicLong();
+        this.listener = listener;
+        this.shared = this;
+        this.moveMap = null;
+        this.inverse = false;
+        this.samePhase1 = true;
+        this.stop = false;
+        this.timedOut = false;
+        this.moves = new int[RubikSolver2.MAX_LENGTH];
+        this.phase1Length = 0;
+    }
+
+    /**
+     * This constructor creates a view of another bound, for searching a
+     * transformed copy of the cube being solved
+     *
+     * @param shared - the bound of the original cube
+     * @param moveMap - the move on the original cube for each move on the searched cube
+     * @param inverse - whether the searched cube is the inverse of the original cube
+     */
+    public SearchBound(SearchBound shared, int[] moveMap, boolean inverse){
+        this.length = shared.length;
+        this.targetLength = shared.targetLength;
+        this.deadline = shared.deadline;
+        this.nodes = shared.nodes;
+        this.listener = shared.listener;
+        this.shared = shared;
+        this.moveMap = moveMap;
+        this.inverse = inverse;
+        this.moves = null;
+        boolean same = !inverse;
+        for(int m = 0; same && m < moveMap.length; m++){
+            same = moveMap[m] == m;
+        }
+        this.samePhase1 = same;
+    }
+
+    /**
+     * @return - true once every search should give up
+     */
+    public boolean stopped(){
+        return shared.stop;
+    }
+
+    /**
+     * Tells every search to give up because the deadline has passed
+     */
+    public void timeOut(){
+        shared.timedOut = true;
+        shared.stop = true;
+    }
+
+    /**
+     * @return - true if the searches gave up because the deadline passed
+     */
+    public boolean timedOut(){
+        return shared.timedOut;
+    }
+
+    /**
+     * Records a solution if it is shorter than the best so far
+     *
+     * @param solution - the moves of the solution
+     * @param total - the number of moves in the solution
+     * @param length1 - how many of the moves belong to phase 1
+     * @return - true if this is now the best solution
+     */
+    public boolean offer(int[] solution, int total, int length1){
+        return shared.record(solution, total, samePhase1 ? length1 : -1, moveMap, inverse);
+    }
+
+    /**
+     * Turns a solution of a transformed cube back into one of the original
+     * cube, and keeps it if it is shorter than the best so far
+     *
+     * @param solution - the moves of the solution
+     * @param total - the number of moves in the solution
+     * @param length1 - how many of the moves belong to phase 1, or -1 if there is no phase 1 part on the original cube
+     * @param map - the move on the original cube for each move in the solution, or null
+     * @param invert - true if the solution is for the inverse cube
+     * @return - true if this is now the best solution
+     */
+    private synchronized boolean record(int[] solution, int total, int length1, int[] map, boolean invert){
+        if(total >= length.get()){
+            return false;
+        }
+        for(int i = 0; i < total; i++){
+            int m = (map == null) ? solution[i] : map[solution[i]];
+            if(invert){
+                //undo the moves of the inverse in reverse order, turning each one back the other way
+                moves[total - 1 - i] = 3 * (int)(m / 3) + 2 - (m % 3);
+            }else{
+                moves[i] = m;
+            }
+        }
+        phase1Length = length1;
+        length.set(total);
+        if(total <= targetLength){
+            stop = true;
+        }
+        if(listener != SolveListener.NONE){
+            listener.solutionFound(moves, total);
+        }
+        return true;
+    }
+
+    /**
+     * @return - true if a solution has been found
+     */
+    public boolean found(){
+        return length.get() <= RubikSolver2.MAX_LENGTH;
+    }
+
+    /**
+     * @return - a copy of the best solution so far, or null if there is none
+     */
+    public int[] moves(){
+        return shared.copyMoves();
+    }
+
+    /**
+     * @return - how many of the moves in the best solution belong to phase 1, or -1 if it was
+     * found by a view that searched the inverse or a rotation of the cube
+     */
+    public int phase1Length(){
+        return shared.getPhase1Length();
+    }
+
+    /**
+     * @return - a copy of the solution held by this bound, or null if there is none
+     */
+    private synchronized int[] copyMoves(){
+        if(!found()){
+            return null;
+        }
+        int[] result = new int[length.get()];
+        System.arraycopy(moves, 0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * @return - the phase 1 length of the solution held by this bound
+     */
+    private synchronized int getPhase1Length(){
+        return phase1Length;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import rubiksolverdef.ByteCube;
+
+/**
+ * This class holds all of the working storage for one solve. The search
+ * keeps its move stacks and the coordinates at each depth in these arrays,
+ * so a context can be reused for solve after solve and the search itself
+ * never has to allocate anything per node.
+ */
+public class SearchContext {
+    //coordinates of the cube after each move on the current phase 1 path
+    public int[] corn;
+    public int[] flipUD;
+    public int[] edge;
+    public int[] ud;
+    //the pruning table distance of the cube at each depth of the current phase 1 path
+    public int[] dist;
+    //the move applied at each depth of the current phase 1 path
+    public int[] moves;
+
+    //the cube after each move of the last phase 1 solution handed to phase 2, and the moves
+    //that made them, so the next solution only has to replay the moves that changed
+    public ByteCube[] cubes;
+    public int[] cubeMoves;
+    //the number of moves in cubes that are still good
+    public int replayed;
+
+    //coordinates of the cube after each move on the current phase 2 path
+    public int[] corn2;
+    public int[] raw2;
+    public int[] edge2;
+    public int[] ud2;
+    //the pruning table distance of the cube at each depth of the current phase 2 path
+    public int[] dist2;
+    //the index into the phase 2 moves applied at each depth of the current phase 2 path
+    public int[] moves2;
+
+    //a solution found by this context, before it is offered to the bound
+    public int[] best;
+
+    //phase 1 nodes visited by the current search
+    public long nodes;
+
+    //set of phase 2 starting cubes already searched in the current solve
+    public VisitedSet searched;
+    //the solve that the searched set belongs to
+    public SearchBound bound;
+
+    /**
+     * This constructor creates the storage for searches up to the given depths
+     *
+     * @param maxDepth1 - the longest phase 1 solution to allow for
+     * @param maxDepth2 - the longest phase 2 solution to allow for
+     */
+    public SearchContext(int maxDepth1, int maxDepth2){
+        corn = new int[maxDepth1 + 1];
+        flipUD = new int[maxDepth1 + 1];
+        edge = new int[maxDepth1 + 1];
+        ud = new int[maxDepth1 + 1];
+        dist = new int[maxDepth1 + 1];
+        moves = new int[maxDepth1 + 1];
+        cubes = new ByteCube[maxDepth1 + 1];
+        for(int i = 0; i <= maxDepth1; i++){
+            cubes[i] = new ByteCube();
+        }
+        cubeMoves = new int[maxDepth1 + 1];
+        replayed = 0;
+        corn2 = new int[maxDepth2 + 1];
+        raw2 = new int[maxDepth2 + 1];
+        edge2 = new int[maxDepth2 + 1];
+        ud2 = new int[maxDepth2 + 1];
+        dist2 = new int[maxDepth2 + 1];
+        moves2 = new int[maxDepth2 + 1];
+        best = new int[maxDepth1 + maxDepth2];
+        nodes = 0;
+        searched = new VisitedSet(1 << 12);
+        bound = null;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import rubiksolver.RubikModel2.*;
+
+/**
+ * This class is the answer returned by the SolverEngine. It holds the
+ * moves that solve the cube, along with some statistics about the search
+ * that found them. It is never changed after it is created.
+ */
+public class Solution {
+    private final int[] moves;
+    //how many moves at the start belong to phase 1, or -1 if the solution came from a search of
+    //the inverse or a rotation of the cube in solveRace, whose phase 1 is not one of this cube
+    public final int phase1Length;
+    public final long nodes;
+    public final long time;
+    public final boolean timedOut;
+
+    /**
+     * This constructor creates a solution
+     *
+     * @param moves - the move indexes that solve the cube
+     * @param phase1Length - how many of the moves belong to phase 1, or -1 if that is not known
+     * @param nodes - the phase 1 nodes visited by the search
+     * @param time - how long the search took, in nanoseconds
+     * @param timedOut - whether the search ran out of time before reaching its target
+     */
+    public Solution(int[] moves, int phase1Length, long nodes, long time, boolean timedOut){
+        this.moves = moves.clone();
+        this.phase1Length = phase1Length;
+        this.nodes = nodes;
+        this.time = time;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * @return - the number of moves in the solution
+     */
+    public int length(){
+        return moves.length;
+    }
+
+    /**
+     * Gets one of the moves in the solution
+     *
+     * @param i - the position of the move
+     * @return - the move index, which is 3 * axis + quarter turns - 1
+     */
+    public int move(int i){
+        return moves[i];
+    }
+
+    /**
+     * @return - a copy of the move indexes in the solution
+     */
+    public int[] moves(){
+        return moves.clone();
+    }
+
+    /**
+     * @return - the move names, separated by spaces
+     */
+    public String toString(){
+        StringBuilder out = new StringBuilder();
+        for(int i = 0; i < moves.length; i++){
+            if(i > 0){
+                out.append(' ');
+            }
+            out.append(Move.values()[moves[i]].name());
+        }
+        return out.toString();
+    }
+}
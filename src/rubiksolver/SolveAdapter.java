@@ -0,0 +1,30 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+/**
+ * This class is a SolveListener that does nothing. Extend it and override
+ * only the callbacks you need.
+ */
+public class SolveAdapter implements SolveListener {
+    public void depthStarted(int phase, int depth){
+    }
+
+    public void nodeExpanded(int phase, int[] moves, int length, int pruneDepth){
+    }
+
+    public void phaseComplete(int phase, int[] moves, int length){
+    }
+
+    public void solutionFound(int[] moves, int length){
+    }
+}
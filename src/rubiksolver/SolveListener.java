@@ -0,0 +1,62 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+/**
+ * This interface lets the GUI, the command line, or anything else watch a
+ * solve as it happens. The search only calls a listener when one other
+ * than NONE is attached, so a solve that nobody is watching does not pay
+ * for building any messages.
+ *
+ * The arrays passed in are the search's own working storage. They are only
+ * valid during the call and must not be changed. When a solve runs on
+ * several threads, the listener is called from all of them at once.
+ */
+public interface SolveListener {
+    //the listener that ignores everything, which is what the search uses by default
+    public static final SolveListener NONE = new SolveAdapter();
+
+    /**
+     * Called when the search starts looking for solutions of a new length
+     *
+     * @param phase - 1 or 2
+     * @param depth - the length of the solutions being looked for
+     */
+    public void depthStarted(int phase, int depth);
+
+    /**
+     * Called each time the search moves deeper along a path
+     *
+     * @param phase - 1 or 2
+     * @param moves - the moves on the path from the start of the solve
+     * @param length - the number of moves on the path
+     * @param pruneDepth - the pruning table's lower bound on the moves left in this phase
+     */
+    public void nodeExpanded(int phase, int[] moves, int length, int pruneDepth);
+
+    /**
+     * Called each time a phase reaches its goal
+     *
+     * @param phase - 1 when the cube is in the phase 2 group, 2 when it is solved
+     * @param moves - the moves from the start of the solve
+     * @param length - the number of moves
+     */
+    public void phaseComplete(int phase, int[] moves, int length);
+
+    /**
+     * Called when a solution shorter than any before it is found
+     *
+     * @param moves - the moves of the solution, on the cube that was asked for
+     * @param length - the number of moves
+     */
+    public void solutionFound(int[] moves, int length);
+}
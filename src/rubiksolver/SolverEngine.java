@@ -0,0 +1,414 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import rubiksolverdef.*;
+import rubiksolver.RubikModel2.*;
+
+/**
+ * This class is the solver without any GUI attached. It owns the model
+ * and all of the tables the search needs, and hands out solutions.
+ *
+ * The tables are stored in final fields and are never written once the
+ * engine has been created, so an engine can be shared freely between
+ * threads. Each thread that calls solve gets its own SearchContext, so
+ * solve can be called from many threads at once.
+ */
+public class SolverEngine {
+    public final RubikModel2 model;
+    public final FlipUDSlice flip;
+    public final CornerPerm perm;
+    public final TwistMoveTable table;
+    public final PruningTables prune;
+
+    //for each of the three URF3 orientations, the move on the cube for each move on the rotated cube
+    private final int[][] raceMoveMap;
+
+    //working storage for each thread that calls solve
+    private final ThreadLocal<SearchContext> contexts = new ThreadLocal<SearchContext>(){
+        protected SearchContext initialValue(){
+            return RubikSolver2.newContext();
+        }
+    };
+
+    /**
+     * This constructor creates an engine from tables that are already built.
+     * The tables must not be changed afterwards.
+     *
+     * @param model - the model to use
+     * @param flip - the FlipUDSlice table to use, with its model set
+     * @param perm - the CornerPerm table to use, with its model set
+     * @param table - the move tables to use
+     * @param prune - the pruning tables to use
+     */
+    public SolverEngine(RubikModel2 model, FlipUDSlice flip, CornerPerm perm, TwistMoveTable table, PruningTables prune){
+        this.model = model;
+        this.flip = flip;
+        this.perm = perm;
+        this.table = table;
+        this.prune = prune;
+        this.raceMoveMap = buildRaceMoveMap(model);
+    }
+
+    /**
+     * This creates an engine from the table files in the given directory.
+     * Any table that cannot be read is built from scratch and saved there.
+     *
+     * @param dir - the directory holding tables.bin and prune.bin
+     * @return - an engine ready to solve cubes
+     */
+    public static SolverEngine load(File dir){
+        return load(dir, false);
+    }
+
+    /**
+     * This creates an engine from the table files in the given directory,
+     * with either the full pruning tables from prune.bin or the packed ones
+     * from prune_packed.bin, which take a quarter of the memory. The move
+     * tables come from tables.bin. Any table that cannot be read is built
+     * from scratch and saved there.
+     *
+     * The files are mapped into memory rather than read. The move tables
+     * are copied onto the heap, but the pruning tables, which are most of
+     * the data, are used straight from the mapped files. They stay off the
+     * heap, and every process solving from the same directory shares them.
+     *
+     * This waits for every table. A TableLoader can load them in the
+     * background instead.
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @return - an engine ready to solve cubes
+     */
+    public static SolverEngine load(File dir, boolean packed){
+        return load(dir, packed, System.out);
+    }
+
+    /**
+     * This creates an engine from the table files in the given directory,
+     * printing the progress of loading or building the tables to the given
+     * stream instead of standard output
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @param log - where to print the progress
+     * @return - an engine ready to solve cubes
+     */
+    public static SolverEngine load(File dir, boolean packed, PrintStream log){
+        return new TableLoader(dir, packed, log).awaitEngine();
+    }
+
+    /**
+     * This finds the fewest moves the pruning table says a cube needs to
+     * reach the phase 2 group
+     *
+     * @param cc - the cube
+     * @return - the pruning depth of the cube in phase 1
+     */
+    public int phase1Depth(CubieCube cc){
+        return RubikSolver2.Phase1Depth(contexts.get(), cc, table, flip, prune, model);
+    }
+
+    /**
+     * This finds the fewest moves the pruning table says a cube in the
+     * phase 2 group needs to be solved
+     *
+     * @param cc - the cube, which must be in the phase 2 group
+     * @return - the pruning depth of the cube in phase 2
+     */
+    public int phase2Depth(CubieCube cc){
+        return RubikSolver2.Phase2Depth(contexts.get(), cc, table, prune, model, perm);
+    }
+
+    /**
+     * This finds the first solution the two phase search comes to
+     *
+     * @param cc - the cube to solve
+     * @return - the solution, or null if the cube cannot be solved
+     */
+    public Solution solve(CubieCube cc){
+        return solve(cc, RubikSolver2.MAX_LENGTH, 0);
+    }
+
+    /**
+     * This keeps improving the solution until it is short enough or time
+     * runs out. If the deadline passes before any solution is found, the
+     * search keeps going until it has one.
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solve(CubieCube cc, int targetLength, long deadline){
+        return solve(cc, targetLength, deadline, SolveListener.NONE);
+    }
+
+    /**
+     * This does the same as solve, and tells the listener about its progress
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param listener - who to tell about the progress of the solve
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solve(CubieCube cc, int targetLength, long deadline, SolveListener listener){
+        SearchBound bound = new SearchBound(targetLength, deadline, listener);
+        long start = System.nanoTime();
+        RubikSolver2.search(contexts.get(), bound, cc, table, flip, prune, model, perm);
+        return result(bound, System.nanoTime() - start);
+    }
+
+    /**
+     * This does the same as solve, but splits the phase 1 search into one
+     * task for each of the first two moves, and runs them all on the common
+     * fork/join pool
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveParallel(CubieCube cc, int targetLength, long deadline){
+        return solveParallel(cc, targetLength, deadline, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This does the same as solve, but splits the phase 1 search into one
+     * task for each of the first two moves, and runs them all on the given pool
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param pool - the pool to run the search on
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveParallel(CubieCube cc, int targetLength, long deadline, ForkJoinPool pool){
+        return solveParallel(cc, targetLength, deadline, pool, SolveListener.NONE);
+    }
+
+    /**
+     * This does the same as solveParallel, and tells the listener about its
+     * progress. The listener is called from every thread of the pool.
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param pool - the pool to run the search on
+     * @param listener - who to tell about the progress of the solve
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveParallel(CubieCube cc, int targetLength, long deadline, ForkJoinPool pool, SolveListener listener){
+        SearchBound bound = new SearchBound(targetLength, deadline, listener);
+        long start = System.nanoTime();
+        RubikSolver2.searchParallel(pool, contexts, bound, cc, table, flip, prune, model, perm);
+        return result(bound, System.nanoTime() - start);
+    }
+
+    /**
+     * This races six searches against each other on the common fork/join
+     * pool, the same way as the other solveRace
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveRace(CubieCube cc, int targetLength, long deadline){
+        return solveRace(cc, targetLength, deadline, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This races six searches against each other. A cube seen from each of
+     * the three orientations along the URF diagonal is a different search
+     * problem with the same answer, and so is its inverse. Some of the six are
+     * usually much easier than the others. Every search prunes against the
+     * best solution any of them has found, and each solution is turned back
+     * into moves on the original cube.
+     *
+     * The race stops when a solution of at most targetLength moves is found,
+     * or when the deadline passes, and returns the shortest solution found.
+     * Its phase1Length is -1 unless the search of the cube as it is found
+     * it, since the others do not start with a phase 1 solution of this cube.
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param pool - the pool to run the six searches on
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveRace(CubieCube cc, int targetLength, long deadline, ForkJoinPool pool){
+        return solveRace(cc, targetLength, deadline, pool, SolveListener.NONE);
+    }
+
+    /**
+     * This does the same as solveRace, and tells the listener about its
+     * progress. The listener is called from all six searches, and only the
+     * solutions passed to solutionFound are moves on the cube that was asked for.
+     *
+     * @param cc - the cube to solve
+     * @param targetLength - a solution this short is good enough
+     * @param deadline - when to give up improving, as a System.nanoTime() value
+     * @param pool - the pool to run the six searches on
+     * @param listener - who to tell about the progress of the solve
+     * @return - the shortest solution found, or null if the cube cannot be solved
+     */
+    public Solution solveRace(CubieCube cc, int targetLength, long deadline, ForkJoinPool pool, SolveListener listener){
+        SearchBound bound = new SearchBound(targetLength, deadline, listener);
+        long start = System.nanoTime();
+        CubieCube urf = new CubieCube();
+        urf.c = model.CornerCubieSym[Symmetry.S_URF3.ordinal()];
+        urf.e = model.EdgeCubieSym[Symmetry.S_URF3.ordinal()];
+        CubieCube urfInv = model.CubeInv(urf);
+        CubieCube s = new CubieCube(true);
+        CubieCube sInv = new CubieCube(true);
+        ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for(int j = 0; j < 3; j++){
+            //the cube as seen after turning the whole cube j times about the URF corner
+            CubieCube rotated = multiply(multiply(sInv, cc), s);
+            tasks.add(raceTask(rotated, new SearchBound(bound, raceMoveMap[j], false)));
+            tasks.add(raceTask(model.CubeInv(rotated), new SearchBound(bound, raceMoveMap[j], true)));
+            s = multiply(s, urf);
+            sInv = multiply(urfInv, sInv);
+        }
+        pool.invokeAll(tasks);
+        return result(bound, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates one of the searches for solveRace
+     *
+     * @param cube - the cube to search
+     * @param bound - the view of the race's bound for this cube
+     * @return - the task
+     */
+    private Callable<Object> raceTask(final CubieCube cube, final SearchBound bound){
+        return new Callable<Object>(){
+            public Object call(){
+                RubikSolver2.search(contexts.get(), bound, cube, table, flip, prune, model, perm);
+                return null;
+            }
+        };
+    }
+
+    /**
+     * This works out which move on the original cube matches each move on
+     * the cube as seen from the three URF3 orientations. The rotated cube
+     * for orientation j is Sinv^j * cube * S^j, so a move M on it is
+     * S^j * M * Sinv^j on the original cube. Each of those is compared
+     * against the 18 moves to find which one it is.
+     *
+     * @param model - the model to use
+     * @return - the move map for each orientation
+     */
+    private static int[][] buildRaceMoveMap(RubikModel2 model){
+        CubieCube[] moveCube = new CubieCube[18];
+        for(int m = 0; m < 18; m++){
+            moveCube[m] = new CubieCube(true);
+            for(int k = 0; k < (m % 3) + 1; k++){
+                moveCube[m] = model.DoMove(moveCube[m], TurnAxis.values()[(int)(m / 3)]);
+            }
+        }
+        CubieCube urf = new CubieCube();
+        urf.c = model.CornerCubieSym[Symmetry.S_URF3.ordinal()];
+        urf.e = model.EdgeCubieSym[Symmetry.S_URF3.ordinal()];
+        CubieCube urfInv = model.CubeInv(urf);
+        CubieCube s = new CubieCube(true);
+        CubieCube sInv = new CubieCube(true);
+        int[][] map = new int[3][18];
+        for(int j = 0; j < 3; j++){
+            for(int m = 0; m < 18; m++){
+                CubieCube conj = multiply(model, multiply(model, s, moveCube[m]), sInv);
+                map[j][m] = -1;
+                for(int n = 0; n < 18; n++){
+                    if(same(conj, moveCube[n])){
+                        map[j][m] = n;
+                        break;
+                    }
+                }
+                if(map[j][m] < 0){
+                    throw new IllegalStateException("URF3 symmetry does not map move " + Move.values()[m] + " to a move");
+                }
+            }
+            s = multiply(model, s, urf);
+            sInv = multiply(model, urfInv, sInv);
+        }
+        return map;
+    }
+
+    /**
+     * Multiplies two cubes
+     *
+     * @param a - the first cube
+     * @param b - the second cube
+     * @return - a * b
+     */
+    private CubieCube multiply(CubieCube a, CubieCube b){
+        return multiply(model, a, b);
+    }
+
+    /**
+     * Multiplies two cubes
+     *
+     * @param model - the model to use
+     * @param a - the first cube
+     * @param b - the second cube
+     * @return - a * b
+     */
+    private static CubieCube multiply(RubikModel2 model, CubieCube a, CubieCube b){
+        CubieCube temp = new CubieCube();
+        temp.c = model.CornMult(a.c, b.c);
+        temp.e = model.EdgeMult(a.e, b.e);
+        return temp;
+    }
+
+    /**
+     * Checks to see if two cubes have every cubie in the same place and orientation
+     *
+     * @param a - the first cube
+     * @param b - the second cube
+     * @return - true if they are the same
+     */
+    private static boolean same(CubieCube a, CubieCube b){
+        for(int i = 0; i < a.c.a.length; i++){
+            if(a.c.a[i].c != b.c.a[i].c || a.c.a[i].o != b.c.a[i].o){
+                return false;
+            }
+        }
+        for(int i = 0; i < a.e.a.length; i++){
+            if(a.e.a[i].e != b.e.a[i].e || a.e.a[i].o != b.e.a[i].o){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turns the state of a finished solve into a Solution
+     *
+     * @param bound - the state of the solve
+     * @param time - how long the solve took, in nanoseconds
+     * @return - the solution, or null if none was found
+     */
+    private static Solution result(SearchBound bound, long time){
+        int[] moves = bound.moves();
+        if(moves == null){
+            return null;
+        }
+        return new Solution(moves, bound.phase1Length(), bound.nodes.get(), time, bound.timedOut());
+    }
+}
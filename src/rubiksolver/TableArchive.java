@@ -0,0 +1,364 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class compresses a table file for shipping, and expands it again.
+ * The pruning tables are nearly 250MB and take minutes to build, but each
+ * entry is one of a dozen or so distances, most of them 9 to 14, so they
+ * are only about a fifth of that once entropy coded. The move tables are
+ * mostly rows that differ little from the row before, or from the same
+ * move 16 or 18 entries back, so they are delta coded first and then
+ * shrink to about a twentieth.
+ *
+ * Each section is compressed on its own with Deflate. Large byte sections,
+ * which are the pruning tables, are Huffman coded only, since repeated
+ * strings are rare in them and looking for them triples the time. Smaller
+ * sections try each delta stride with full Deflate and keep the smallest.
+ *
+ * The layout is:
+ *   the magic number "RUBIKTBZ", the format version, the section count,
+ *   the length of the table file and the length of its header
+ *   the header and section table of the table file, exactly as they are
+ *   one 40 byte entry per section: its offset and length in the table
+ *   file, element type, delta stride, and the offset and length of its
+ *   compressed data in the archive
+ *   the compressed data of each section
+ *
+ * A table file is expanded straight into a mapping of the new file, one
+ * section per thread, so nothing but the inflater's own window is held
+ * in memory. The checksums in the table file's header check the result
+ * the first time each section is used, like any other table file.
+ */
+public class TableArchive {
+    //"RUBIKTBZ" read as a little-endian long
+    public static final long MAGIC = 0x5A42544B49425552L;
+    //changes whenever the layout of the archive changes
+    public static final int VERSION = 1;
+
+    //bytes taken by the magic number, version, section count and lengths
+    private static final int HEADER = 32;
+    //bytes taken by one section entry
+    private static final int ENTRY = 40;
+    //sections bigger than this are only entropy coded
+    private static final int SMALL = 8 << 20;
+    //the strides tried for delta coding: the next element, the next sym and the next row of moves
+    private static final int[] STRIDES = {1, 16, TwistMoveTable.MOVES};
+    //bytes inflated at a time before the delta is undone
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * Gets the name an archive of a table file is saved under
+     *
+     * @param file - the table file
+     * @return - the archive, next to it
+     */
+    public static File archiveOf(File file){
+        return new File(file.getPath() + "z");
+    }
+
+    /**
+     * Compresses a table file. Every section is checked against its
+     * checksum first, so a damaged file is never archived.
+     *
+     * @param file - the table file
+     * @param archive - the archive to write
+     * @return - the length of the archive in bytes
+     * @throws IOException - if the table file cannot be read or is damaged, or the archive cannot be written
+     */
+    public static long compress(File file, File archive) throws IOException{
+        TableFile tables = TableFile.map(file);
+        String[] names = tables.names();
+        ByteBuffer header = tables.header();
+        ByteBuffer entries = ByteBuffer.allocate(names.length * ENTRY).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER + header.remaining() + entries.capacity();
+        ArrayList<byte[]> data = new ArrayList<byte[]>();
+        for(String name : names){
+            ByteBuffer section = tables.raw(name);
+            int type = tables.type(name);
+            int stride = 0;
+            byte[] best = deflate(section.duplicate(), Deflater.HUFFMAN_ONLY);
+            if(section.remaining() <= SMALL){
+                byte[] plain = deflate(section.duplicate(), Deflater.DEFAULT_STRATEGY);
+                if(plain.length < best.length){
+                    best = plain;
+                }
+                for(int s = 0; type != TableFile.BYTE && s < STRIDES.length; s++){
+                    byte[] delta = deflate(delta(section, type, STRIDES[s]), Deflater.DEFAULT_STRATEGY);
+                    if(delta.length < best.length){
+                        best = delta;
+                        stride = STRIDES[s];
+                    }
+                }
+            }
+            entries.putLong(tables.offset(name));
+            entries.putLong(section.remaining());
+            entries.putInt(type);
+            entries.putInt(stride);
+            entries.putLong(position);
+            entries.putLong(best.length);
+            position += best.length;
+            data.add(best);
+        }
+        ByteBuffer start = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        start.putLong(MAGIC);
+        start.putInt(VERSION);
+        start.putInt(names.length);
+        start.putLong(tables.length());
+        start.putLong(header.remaining());
+        start.flip();
+        entries.flip();
+
+        File temp = new File(archive.getPath() + ".tmp");
+        FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try{
+            long at = 0;
+            for(ByteBuffer part : new ByteBuffer[]{start, header, entries}){
+                int length = part.remaining();
+                TableFile.writeFully(channel, part, at);
+                at += length;
+            }
+            for(byte[] d : data){
+                TableFile.writeFully(channel, ByteBuffer.wrap(d), at);
+                at += d.length;
+            }
+            channel.force(false);
+        }finally{
+            channel.close();
+        }
+        java.nio.file.Files.move(temp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return position;
+    }
+
+    /**
+     * Delta codes a section: each element becomes its difference from the
+     * element stride places before it, wrapping around
+     *
+     * @param section - the section, little-endian
+     * @param type - its element type, CHAR or INT
+     * @param stride - how far back the element it is taken from is
+     * @return - the coded section, little-endian
+     */
+    private static ByteBuffer delta(ByteBuffer section, int type, int stride){
+        ByteBuffer in = section.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer out = ByteBuffer.allocate(in.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        int count = in.remaining() / type;
+        for(int k = 0; k < count; k++){
+            if(type == TableFile.CHAR){
+                out.putChar(k * 2, (char)(in.getChar(k * 2) - ((k < stride) ? 0 : in.getChar((k - stride) * 2))));
+            }else{
+                out.putInt(k * 4, in.getInt(k * 4) - ((k < stride) ? 0 : in.getInt((k - stride) * 4)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Compresses some bytes with Deflate at its best compression
+     *
+     * @param input - the bytes
+     * @param strategy - the Deflater strategy to use
+     * @return - the compressed bytes
+     */
+    private static byte[] deflate(ByteBuffer input, int strategy){
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] scratch = new byte[1 << 16];
+        try{
+            deflater.setStrategy(strategy);
+            deflater.setInput(input);
+            deflater.finish();
+            while(!deflater.finished()){
+                int length = deflater.deflate(scratch);
+                out.write(scratch, 0, length);
+            }
+        }finally{
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Expands an archive back into the table file it was made from. The
+     * file is written under another name and then renamed, so a file that
+     * is only half written is never found.
+     *
+     * @param archive - the archive
+     * @param file - the table file to write
+     * @throws IOException - if the archive cannot be read or is damaged, or the file cannot be written
+     */
+    public static void expand(File archive, File file) throws IOException{
+        ByteBuffer in;
+        FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ);
+        try{
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }finally{
+            channel.close();
+        }
+        if(in.capacity() < HEADER || in.getLong(0) != MAGIC){
+            throw new IOException("not a table archive");
+        }
+        if(in.getInt(8) != VERSION){
+            throw new IOException("table archive version " + in.getInt(8) + ", expected " + VERSION);
+        }
+        final int count = in.getInt(12);
+        final long length = in.getLong(16);
+        final int headerLength = (int)in.getLong(24);
+        if(count < 0 || headerLength < 0 || length < headerLength || length > Integer.MAX_VALUE
+                || HEADER + headerLength + (long)count * ENTRY > in.capacity()){
+            throw new IOException("bad table archive header");
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ExecutorService threads = Executors.newFixedThreadPool(Math.max(1, Math.min(count, Runtime.getRuntime().availableProcessors())));
+        boolean done = false;
+        try{
+            final ByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+            ArrayList<Future<Void>> sections = new ArrayList<Future<Void>>();
+            for(int i = 0; i < count; i++){
+                int at = HEADER + headerLength + (i * ENTRY);
+                final long offset = in.getLong(at);
+                final long size = in.getLong(at + 8);
+                final int type = in.getInt(at + 16);
+                final int stride = in.getInt(at + 20);
+                final long dataOffset = in.getLong(at + 24);
+                final long dataLength = in.getLong(at + 32);
+                if((type != TableFile.BYTE && type != TableFile.CHAR && type != TableFile.INT) || stride < 0
+                        || offset < headerLength || offset + size > length || size % type != 0
+                        || dataOffset < 0 || dataOffset + dataLength > in.capacity()){
+                    throw new IOException("bad table archive entry " + i);
+                }
+                final ByteBuffer data = view(in, dataOffset, dataLength);
+                final ByteBuffer section = view(out, offset, size);
+                sections.add(threads.submit(new Callable<Void>(){
+                    public Void call() throws IOException{
+                        inflate(data, section, type, stride);
+                        return null;
+                    }
+                }));
+            }
+            ByteBuffer header = view(in, HEADER, headerLength);
+            out.put(header);
+            for(Future<Void> section : sections){
+                try{
+                    section.get();
+                }catch(ExecutionException e){
+                    throw new IOException("table archive is damaged", e.getCause());
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while expanding");
+                }
+            }
+            ((java.nio.MappedByteBuffer)out).force();
+            done = true;
+        }finally{
+            threads.shutdownNow();
+            channel.close();
+            if(!done){
+                temp.delete();
+            }
+        }
+        java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets part of a buffer without copying it
+     *
+     * @param buffer - the buffer
+     * @param offset - where the part starts
+     * @param length - how long it is
+     * @return - the part, little-endian
+     */
+    private static ByteBuffer view(ByteBuffer buffer, long offset, long length){
+        ByteBuffer view = buffer.duplicate();
+        view.position((int)offset);
+        view.limit((int)(offset + length));
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Inflates one section into place, a chunk at a time, undoing the
+     * delta coding of each chunk as soon as it is inflated
+     *
+     * @param data - the compressed section
+     * @param section - where the section goes
+     * @param type - its element type
+     * @param stride - the delta stride, or 0 if it is not delta coded
+     * @throws IOException - if the compressed section is damaged or too short
+     */
+    private static void inflate(ByteBuffer data, ByteBuffer section, int type, int stride) throws IOException{
+        Inflater inflater = new Inflater();
+        try{
+            inflater.setInput(data);
+            int undone = 0;
+            while(section.hasRemaining()){
+                section.limit(Math.min(section.capacity(), section.position() + CHUNK));
+                if(inflater.inflate(section) == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())){
+                    throw new IOException("compressed section is too short");
+                }
+                section.limit(section.capacity());
+                if(stride > 0){
+                    undone = undelta(section, type, stride, undone, section.position() / type);
+                }
+            }
+        }catch(DataFormatException e){
+            throw new IOException("compressed section is damaged", e);
+        }finally{
+            inflater.end();
+        }
+    }
+
+    /**
+     * Undoes the delta coding of some elements of a section. Every element
+     * before them must already be undone.
+     *
+     * @param section - the section, little-endian
+     * @param type - its element type, CHAR or INT
+     * @param stride - the delta stride
+     * @param from - the first element to undo
+     * @param to - the element after the last one to undo
+     * @return - to, the first element still to undo
+     */
+    private static int undelta(ByteBuffer section, int type, int stride, int from, int to){
+        for(int k = Math.max(from, stride); k < to; k++){
+            if(type == TableFile.CHAR){
+                section.putChar(k * 2, (char)(section.getChar(k * 2) + section.getChar((k - stride) * 2)));
+            }else{
+                section.putInt(k * 4, section.getInt(k * 4) + section.getInt((k - stride) * 4));
+            }
+        }
+        return to;
+    }
+}
@@ -0,0 +1,724 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * This class reads and writes the binary table files. A table file is a
+ * header followed by named sections, and each section is one array of
+ * bytes, chars or ints, always little-endian so a file works on any machine.
+ *
+ * The layout is:
+ *   the magic number "RUBIKTBL", the format version and the section count
+ *   one 64 byte entry per section: its name, element type, rows, columns,
+ *   CRC-32C checksum, offset in the file and number of elements
+ *   the sections, each starting on a multiple of 64 bytes
+ *
+ * One of the sections is the manifest, which is text, one "key=value" line
+ * for each parameter the tables were built with. Each table records its
+ * own version there, along with anything it was built from, so a table
+ * that no longer matches the code can be found and built again on its own.
+ * Each section is checked against its checksum the first time it is used.
+ *
+ * A file is read by mapping the whole of it into memory, so nothing is
+ * copied until it is asked for. The sections can be used straight from the
+ * mapped memory, which is off the Java heap and lives in the operating
+ * system's page cache. Every process that maps the same file shares the
+ * one copy, and a second start does not read the disk at all.
+ */
+public class TableFile {
+    //"RUBIKTBL" read as a little-endian long
+    public static final long MAGIC = 0x4C42544B49425552L;
+    //changes whenever the layout of the file or of any section changes
+    public static final int VERSION = 2;
+
+    //element types, which are also their sizes in bytes
+    public static final int BYTE = 1;
+    public static final int CHAR = 2;
+    public static final int INT = 4;
+
+    //bytes taken by the magic number, version and section count
+    private static final int HEADER = 16;
+    //bytes taken by one section entry, and by the name in it
+    private static final int ENTRY = 64;
+    private static final int NAME = 32;
+    //every section starts on a multiple of this
+    private static final int ALIGN = 64;
+    //bytes converted to little-endian at a time while writing
+    private static final int CHUNK = 1 << 20;
+    //the name of the section that holds the manifest
+    private static final String MANIFEST = "Manifest";
+
+    /**
+     * This class is one entry of the section table
+     */
+    private static class Section {
+        String name;
+        int type;
+        int rows;
+        int cols;
+        int crc;
+        long offset;
+        long count;
+        //the array to write, when the file is being written
+        Object array;
+        //whether the checksum has been checked
+        volatile boolean verified;
+    }
+
+    //the sections, in the order they are in the file
+    private final LinkedHashMap<String, Section> sections;
+    //the parameters the tables were built with
+    private final LinkedHashMap<String, Long> manifest;
+    //the whole file, when it has been mapped
+    private final ByteBuffer buffer;
+
+    /**
+     * This constructor creates an empty file, for sections to be added to
+     * before it is written
+     */
+    public TableFile(){
+        sections = new LinkedHashMap<String, Section>();
+        manifest = new LinkedHashMap<String, Long>();
+        buffer = null;
+    }
+
+    /**
+     * This constructor reads the section table of a file that has been mapped
+     *
+     * @param buffer - the whole file
+     * @throws IOException - if the file is not a table file of this version, or its manifest is damaged
+     */
+    private TableFile(ByteBuffer buffer) throws IOException{
+        this.sections = new LinkedHashMap<String, Section>();
+        this.manifest = new LinkedHashMap<String, Long>();
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.capacity() < HEADER || buffer.getLong(0) != MAGIC){
+            throw new IOException("not a table file");
+        }
+        if(buffer.getInt(8) != VERSION){
+            throw new IOException("table file version " + buffer.getInt(8) + ", expected " + VERSION);
+        }
+        int count = buffer.getInt(12);
+        if(count < 0 || HEADER + (long)count * ENTRY > buffer.capacity()){
+            throw new IOException("bad section count " + count);
+        }
+        for(int i = 0; i < count; i++){
+            int at = HEADER + (i * ENTRY);
+            byte[] name = new byte[NAME];
+            buffer.position(at);
+            buffer.get(name);
+            int length = 0;
+            while(length < NAME && name[length] != 0){
+                length++;
+            }
+            Section s = new Section();
+            s.name = new String(name, 0, length, StandardCharsets.US_ASCII);
+            s.type = buffer.getInt(at + NAME);
+            s.rows = buffer.getInt(at + NAME + 4);
+            s.cols = buffer.getInt(at + NAME + 8);
+            s.crc = buffer.getInt(at + NAME + 12);
+            s.offset = buffer.getLong(at + NAME + 16);
+            s.count = buffer.getLong(at + NAME + 24);
+            if((s.type != BYTE && s.type != CHAR && s.type != INT) || s.offset < 0 || s.count < 0
+                    || s.offset + (s.count * s.type) > buffer.capacity()){
+                throw new IOException("bad section " + s.name);
+            }
+            sections.put(s.name, s);
+        }
+        buffer.position(0);
+        if(sections.containsKey(MANIFEST)){
+            String text = new String(byteArray(MANIFEST), StandardCharsets.US_ASCII);
+            for(String line : text.split("\n")){
+                int equals = line.indexOf('=');
+                if(equals < 0){
+                    continue;
+                }
+                try{
+                    manifest.put(line.substring(0, equals), Long.parseLong(line.substring(equals + 1)));
+                }catch(NumberFormatException e){
+                    throw new IOException("bad manifest line " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a table file into memory and reads its section table
+     *
+     * @param file - the file to map
+     * @return - the mapped file
+     * @throws IOException - if it cannot be read, or is not a table file of this version
+     */
+    public static TableFile map(File file) throws IOException{
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try{
+            //the mapping stays valid once the channel is closed
+            return new TableFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }finally{
+            channel.close();
+        }
+    }
+
+    /**
+     * Adds a section of bytes to be written
+     *
+     * @param name - the name of the section
+     * @param array - the section
+     */
+    public void add(String name, byte[] array){
+        add(name, BYTE, array.length, 1, array.length, array);
+    }
+
+    /**
+     * Adds a section of chars to be written
+     *
+     * @param name - the name of the section
+     * @param array - the section
+     */
+    public void add(String name, char[] array){
+        add(name, CHAR, array.length, 1, array.length, array);
+    }
+
+    /**
+     * Adds a section of ints to be written
+     *
+     * @param name - the name of the section
+     * @param array - the section
+     */
+    public void add(String name, int[] array){
+        add(name, INT, array.length, 1, array.length, array);
+    }
+
+    /**
+     * Adds a table of ints to be written, one row after another. Every row
+     * must be the same length.
+     *
+     * @param name - the name of the section
+     * @param array - the section
+     */
+    public void add(String name, int[][] array){
+        int cols = (array.length == 0) ? 0 : array[0].length;
+        add(name, INT, array.length, cols, (long)array.length * cols, array);
+    }
+
+    /**
+     * Adds a section whose array does not have the same shape as the table
+     * it holds, such as a pruning table packed 16 entries to an int
+     *
+     * @param name - the name of the section
+     * @param rows - the number of rows of the table
+     * @param cols - the number of columns of the table
+     * @param array - the section
+     */
+    public void add(String name, int rows, int cols, byte[] array){
+        add(name, BYTE, rows, cols, array.length, array);
+    }
+
+    /**
+     * Adds a table of chars that is kept in one flat array, one row after
+     * another, such as a symmetry table
+     *
+     * @param name - the name of the section
+     * @param rows - the number of rows of the table
+     * @param cols - the number of columns of the table
+     * @param array - the section
+     */
+    public void add(String name, int rows, int cols, char[] array){
+        add(name, CHAR, rows, cols, array.length, array);
+    }
+
+    /**
+     * Adds a section whose array does not have the same shape as the table
+     * it holds, such as a pruning table packed 16 entries to an int
+     *
+     * @param name - the name of the section
+     * @param rows - the number of rows of the table
+     * @param cols - the number of columns of the table
+     * @param array - the section
+     */
+    public void add(String name, int rows, int cols, int[] array){
+        add(name, INT, rows, cols, array.length, array);
+    }
+
+    /**
+     * Adds a section to the section table
+     *
+     * @param name - the name of the section
+     * @param type - the element type
+     * @param rows - the number of rows
+     * @param cols - the number of columns
+     * @param count - the number of elements
+     * @param array - the section
+     */
+    private void add(String name, int type, int rows, int cols, long count, Object array){
+        if(buffer != null){
+            throw new IllegalStateException("a mapped table file cannot be added to");
+        }
+        if(name.length() > NAME){
+            throw new IllegalArgumentException("section name too long: " + name);
+        }
+        Section s = new Section();
+        s.name = name;
+        s.type = type;
+        s.rows = rows;
+        s.cols = cols;
+        s.count = count;
+        s.array = array;
+        sections.put(name, s);
+    }
+
+    /**
+     * Records a parameter in the manifest
+     *
+     * @param key - the name of the parameter
+     * @param value - its value
+     */
+    public void put(String key, long value){
+        if(buffer != null){
+            throw new IllegalStateException("a mapped table file cannot be added to");
+        }
+        manifest.put(key, value);
+    }
+
+    /**
+     * Gets a parameter from the manifest
+     *
+     * @param key - the name of the parameter
+     * @return - its value
+     * @throws IOException - if the manifest does not have it
+     */
+    public long parameter(String key) throws IOException{
+        Long value = manifest.get(key);
+        if(value == null){
+            throw new IOException("manifest has no " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Checks that a parameter in the manifest has the value it should
+     *
+     * @param key - the name of the parameter
+     * @param value - the value it should have
+     * @throws IOException - if the manifest does not have it, or it has another value
+     */
+    public void expect(String key, long value) throws IOException{
+        long found = parameter(key);
+        if(found != value){
+            throw new IOException(key + " is " + found + ", expected " + value);
+        }
+    }
+
+    /**
+     * Writes every section that has been added. The file is written under
+     * another name and then renamed, so a file that is already mapped by
+     * another process is never changed under it, and a file that is only
+     * half written is never found.
+     *
+     * @param file - the file to write
+     * @throws IOException - if it cannot be written
+     */
+    public void write(File file) throws IOException{
+        if(!manifest.isEmpty()){
+            StringBuilder text = new StringBuilder();
+            for(Map.Entry<String, Long> entry : manifest.entrySet()){
+                text.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+            }
+            sections.remove(MANIFEST);
+            add(MANIFEST, text.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try{
+            long offset = align(HEADER + (long)sections.size() * ENTRY);
+            ByteBuffer header = ByteBuffer.allocate((int)offset).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(sections.size());
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            for(Section s : sections.values()){
+                s.offset = offset;
+                offset = align(offset + (s.count * s.type));
+                //the checksum is only known once the section is written
+                s.crc = writeSection(channel, chunk, s);
+                byte[] name = s.name.getBytes(StandardCharsets.US_ASCII);
+                header.put(name);
+                header.put(new byte[NAME - name.length]);
+                header.putInt(s.type);
+                header.putInt(s.rows);
+                header.putInt(s.cols);
+                header.putInt(s.crc);
+                header.putLong(s.offset);
+                header.putLong(s.count);
+            }
+            header.clear();
+            writeFully(channel, header, 0);
+            channel.force(false);
+        }finally{
+            channel.close();
+        }
+        java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes one section in little-endian order, a chunk at a time
+     *
+     * @param channel - the file being written
+     * @param chunk - a buffer to convert each chunk in
+     * @param s - the section
+     * @return - the checksum of the section
+     * @throws IOException - if it cannot be written
+     */
+    private static int writeSection(FileChannel channel, ByteBuffer chunk, Section s) throws IOException{
+        CRC32C crc = new CRC32C();
+        long position = s.offset;
+        if(s.array instanceof byte[]){
+            crc.update((byte[])s.array);
+            writeFully(channel, ByteBuffer.wrap((byte[])s.array), position);
+            return (int)crc.getValue();
+        }
+        chunk.clear();
+        if(s.array instanceof char[]){
+            char[] array = (char[])s.array;
+            for(int i = 0; i < array.length; i++){
+                if(chunk.remaining() < 2){
+                    position = flush(channel, chunk, crc, position);
+                }
+                chunk.putChar(array[i]);
+            }
+        }else if(s.array instanceof int[]){
+            int[] array = (int[])s.array;
+            for(int i = 0; i < array.length; i++){
+                if(chunk.remaining() < 4){
+                    position = flush(channel, chunk, crc, position);
+                }
+                chunk.putInt(array[i]);
+            }
+        }else{
+            int[][] array = (int[][])s.array;
+            for(int i = 0; i < array.length; i++){
+                if(array[i].length != s.cols){
+                    throw new IllegalArgumentException("rows of " + s.name + " are not all the same length");
+                }
+                for(int j = 0; j < s.cols; j++){
+                    if(chunk.remaining() < 4){
+                        position = flush(channel, chunk, crc, position);
+                    }
+                    chunk.putInt(array[i][j]);
+                }
+            }
+        }
+        flush(channel, chunk, crc, position);
+        return (int)crc.getValue();
+    }
+
+    /**
+     * Writes out what has been put in the chunk, and empties it
+     *
+     * @param channel - the file being written
+     * @param chunk - the chunk
+     * @param crc - the checksum of the section so far
+     * @param position - where in the file it goes
+     * @return - where the next chunk goes
+     * @throws IOException - if it cannot be written
+     */
+    private static long flush(FileChannel channel, ByteBuffer chunk, CRC32C crc, long position) throws IOException{
+        chunk.flip();
+        int length = chunk.remaining();
+        crc.update(chunk.duplicate());
+        writeFully(channel, chunk, position);
+        chunk.clear();
+        return position + length;
+    }
+
+    /**
+     * Writes the whole of a buffer
+     *
+     * @param channel - the file being written
+     * @param data - the buffer
+     * @param position - where in the file it goes
+     * @throws IOException - if it cannot be written
+     */
+    static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException{
+        while(data.hasRemaining()){
+            position += channel.write(data, position);
+        }
+    }
+
+    /**
+     * Rounds an offset up to the next section boundary
+     *
+     * @param offset - the offset
+     * @return - the offset of the next section
+     */
+    private static long align(long offset){
+        return (offset + ALIGN - 1) & ~(long)(ALIGN - 1);
+    }
+
+    /**
+     * Finds a section of the mapped file
+     *
+     * @param name - the name of the section
+     * @param type - the element type it must have
+     * @return - the section
+     * @throws IOException - if the file has no such section
+     */
+    private Section section(String name, int type) throws IOException{
+        Section s = sections.get(name);
+        if(s == null || buffer == null){
+            throw new IOException("no section " + name);
+        }
+        if(s.type != type){
+            throw new IOException("section " + name + " has type " + s.type + ", expected " + type);
+        }
+        return s;
+    }
+
+    /**
+     * @param name - the name of a section
+     * @return - true if the file has that section
+     */
+    public boolean has(String name){
+        return sections.containsKey(name);
+    }
+
+    /**
+     * @param name - the name of a section
+     * @return - its element type: BYTE, CHAR or INT
+     * @throws IOException - if the file has no such section
+     */
+    public int type(String name) throws IOException{
+        Section s = sections.get(name);
+        if(s == null){
+            throw new IOException("no section " + name);
+        }
+        return s.type;
+    }
+
+    /**
+     * @param name - the name of a section
+     * @return - the number of rows it has
+     * @throws IOException - if the file has no such section
+     */
+    public int rows(String name) throws IOException{
+        Section s = sections.get(name);
+        if(s == null){
+            throw new IOException("no section " + name);
+        }
+        return s.rows;
+    }
+
+    /**
+     * @param name - the name of a section
+     * @return - the number of columns it has
+     * @throws IOException - if the file has no such section
+     */
+    public int cols(String name) throws IOException{
+        Section s = sections.get(name);
+        if(s == null){
+            throw new IOException("no section " + name);
+        }
+        return s.cols;
+    }
+
+    /**
+     * Gets a section of the mapped file without copying it, checking it
+     * against its checksum the first time
+     *
+     * @param name - the name of the section
+     * @param type - the element type it must have
+     * @return - the section, in little-endian order
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    private ByteBuffer slice(String name, int type) throws IOException{
+        Section s = section(name, type);
+        ByteBuffer view = buffer.duplicate();
+        view.position((int)s.offset);
+        view.limit((int)(s.offset + (s.count * s.type)));
+        view = view.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if(!s.verified){
+            CRC32C crc = new CRC32C();
+            crc.update(view.duplicate());
+            if((int)crc.getValue() != s.crc){
+                throw new IOException("section " + name + " is damaged");
+            }
+            s.verified = true;
+        }
+        return view;
+    }
+
+    /**
+     * @return - the names of the sections, in the order they are in the file
+     */
+    public String[] names(){
+        return sections.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * @param name - the name of a section
+     * @return - where it starts in the file
+     * @throws IOException - if the file has no such section
+     */
+    long offset(String name) throws IOException{
+        return section(name, type(name)).offset;
+    }
+
+    /**
+     * @return - the length of the mapped file in bytes
+     */
+    long length(){
+        return buffer.capacity();
+    }
+
+    /**
+     * Gets the bytes of any section of the mapped file without copying
+     * them, checking them against its checksum the first time
+     *
+     * @param name - the name of the section
+     * @return - the section as bytes, in little-endian order
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    ByteBuffer raw(String name) throws IOException{
+        return slice(name, type(name));
+    }
+
+    /**
+     * Gets the start of the mapped file, up to the first section
+     *
+     * @return - the header and section table, exactly as they are in the file
+     */
+    ByteBuffer header(){
+        long first = buffer.capacity();
+        for(Section s : sections.values()){
+            first = Math.min(first, s.offset);
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        view.limit((int)first);
+        return view.slice();
+    }
+
+    /**
+     * @param name - the name of a section of bytes
+     * @return - the section, read straight from the mapped file
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public ByteBuffer bytes(String name) throws IOException{
+        return slice(name, BYTE);
+    }
+
+    /**
+     * @param name - the name of a section of chars
+     * @return - the section, read straight from the mapped file
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public CharBuffer chars(String name) throws IOException{
+        return slice(name, CHAR).asCharBuffer();
+    }
+
+    /**
+     * @param name - the name of a section of ints
+     * @return - the section, read straight from the mapped file
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public IntBuffer ints(String name) throws IOException{
+        return slice(name, INT).asIntBuffer();
+    }
+
+    /**
+     * @param name - the name of a section of bytes
+     * @return - a copy of the section on the heap
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public byte[] byteArray(String name) throws IOException{
+        ByteBuffer view = bytes(name);
+        byte[] array = new byte[view.remaining()];
+        view.get(array);
+        return array;
+    }
+
+    /**
+     * @param name - the name of a section of chars
+     * @return - a copy of the section on the heap
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public char[] charArray(String name) throws IOException{
+        CharBuffer view = chars(name);
+        char[] array = new char[view.remaining()];
+        view.get(array);
+        return array;
+    }
+
+    /**
+     * @param name - the name of a section of ints
+     * @return - a copy of the section on the heap
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public int[] intArray(String name) throws IOException{
+        IntBuffer view = ints(name);
+        int[] array = new int[view.remaining()];
+        view.get(array);
+        return array;
+    }
+
+    /**
+     * @param name - the name of a table of ints
+     * @return - a copy of the table on the heap, one array per row
+     * @throws IOException - if the file has no such section, or it is damaged
+     */
+    public int[][] intTable(String name) throws IOException{
+        Section s = section(name, INT);
+        IntBuffer view = ints(name);
+        if((long)s.rows * s.cols != s.count){
+            throw new IOException("section " + name + " is not a table");
+        }
+        int[][] array = new int[s.rows][s.cols];
+        for(int i = 0; i < s.rows; i++){
+            view.get(array[i]);
+        }
+        return array;
+    }
+
+    /**
+     * Works out the checksum a table of ints would have as a section, so
+     * a table that was built from it can record which one it was built from
+     *
+     * @param array - the table, with every row the same length
+     * @return - the checksum of its rows in little-endian order
+     */
+    public static int checksum(int[][] array){
+        CRC32C crc = new CRC32C();
+        ByteBuffer row = ByteBuffer.allocate(4 * ((array.length == 0) ? 0 : array[0].length)).order(ByteOrder.LITTLE_ENDIAN);
+        for(int i = 0; i < array.length; i++){
+            row.clear();
+            row.asIntBuffer().put(array[i]);
+            crc.update(row);
+        }
+        return (int)crc.getValue();
+    }
+}
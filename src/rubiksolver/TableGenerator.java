@@ -0,0 +1,165 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import rubiksolverdef.*;
+
+/**
+ * This class checks and builds the table files from the command line, so
+ * they can be made ahead of time instead of the first time the solver runs.
+ *
+ * By default every table that is missing, damaged or out of date is built
+ * and saved, along with any table built from one whose classes changed.
+ * Tables that are fine are left alone. The state and load time of each
+ * table is printed at the end.
+ *
+ * Usage: java rubiksolver.TableGenerator [options] [dir]
+ *   -packed      the packed pruning tables (prune_packed.bin) instead of the full ones
+ *   -verify      only check the tables, and build nothing. Exits with 1 if any are bad
+ *   -rebuild t   build table t even if it is fine, where t is FlipUDSlice, CornerPerm,
+ *                Table or PruningTable. May be given more than once
+ *   -all         build every table
+ *   -archive     also compress the table files into tables.binz and prune.binz
+ *                (or prune_packed.binz), which are expanded when the table
+ *                files are missing
+ * The directory defaults to the current directory.
+ */
+public class TableGenerator {
+    /**
+     * Checks each table in a directory without building anything
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to check the packed pruning tables
+     * @param out - where to write the result for each table
+     * @return - true if every table is fine
+     */
+    public static boolean verify(File dir, boolean packed, PrintStream out){
+        RubikModel2 model = new RubikModel2();
+        boolean ok = true;
+        TableFile moves = null;
+        try{
+            moves = TableFile.map(new File(dir, "tables.bin"));
+        }catch(IOException e){
+            out.println("tables.bin FAILED " + e.getMessage());
+            ok = false;
+        }
+        FlipUDSlice flip = null;
+        CornerPerm perm = null;
+        if(moves != null){
+            try{
+                flip = new FlipUDSlice(model, moves);
+                out.println(TableLoader.FLIP + " OK");
+            }catch(IOException e){
+                out.println(TableLoader.FLIP + " FAILED " + e.getMessage());
+                ok = false;
+            }
+            try{
+                perm = new CornerPerm(model, moves);
+                out.println(TableLoader.PERM + " OK");
+            }catch(IOException e){
+                out.println(TableLoader.PERM + " FAILED " + e.getMessage());
+                ok = false;
+            }
+        }
+        //the other tables can only be checked against the classes they were built from
+        if(flip == null || perm == null){
+            out.println(TableLoader.TABLE + " NOT CHECKED");
+            out.println(TableLoader.PRUNE + " NOT CHECKED");
+            return false;
+        }
+        try{
+            new TwistMoveTable(moves, flip, perm);
+            out.println(TableLoader.TABLE + " OK");
+        }catch(IOException e){
+            out.println(TableLoader.TABLE + " FAILED " + e.getMessage());
+            ok = false;
+        }
+        String pruneFile = packed ? "prune_packed.bin" : "prune.bin";
+        try{
+            new PruningTables(TableFile.map(new File(dir, pruneFile)), flip, perm, packed);
+            out.println(TableLoader.PRUNE + " OK");
+        }catch(IOException e){
+            out.println(TableLoader.PRUNE + " FAILED " + e.getMessage());
+            ok = false;
+        }
+        return ok;
+    }
+
+    /**
+     * Runs the table generator from the command line
+     *
+     * @param args - the options and directory, see the class comment
+     */
+    public static void main(String[] args){
+        boolean packed = false;
+        boolean verify = false;
+        boolean archive = false;
+        HashSet<String> rebuild = new HashSet<String>();
+        String dir = ".";
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-packed")){
+                packed = true;
+            }else if(args[i].equals("-verify")){
+                verify = true;
+            }else if(args[i].equals("-rebuild")){
+                String name = args[++i];
+                if(!name.equals(TableLoader.FLIP) && !name.equals(TableLoader.PERM)
+                        && !name.equals(TableLoader.TABLE) && !name.equals(TableLoader.PRUNE)){
+                    System.err.println("no table " + name);
+                    System.exit(2);
+                }
+                rebuild.add(name);
+            }else if(args[i].equals("-archive")){
+                archive = true;
+            }else if(args[i].equals("-all")){
+                rebuild.add(TableLoader.FLIP);
+                rebuild.add(TableLoader.PERM);
+                rebuild.add(TableLoader.TABLE);
+                rebuild.add(TableLoader.PRUNE);
+            }else{
+                dir = args[i];
+            }
+        }
+        if(verify){
+            System.exit(verify(new File(dir), packed, System.out) ? 0 : 1);
+        }
+        ExecutorService threads = Executors.newCachedThreadPool();
+        TableLoader loader = new TableLoader(new File(dir), packed, threads, rebuild);
+        try{
+            loader.awaitEngine();
+        }catch(IllegalStateException e){
+            e.printStackTrace();
+        }
+        threads.shutdown();
+        System.out.print(loader.status());
+        System.out.println("Built: " + (loader.built().isEmpty() ? "nothing" : String.join(", ", loader.built())));
+        if(archive && loader.isHealthy()){
+            for(String name : new String[]{"tables.bin", packed ? "prune_packed.bin" : "prune.bin"}){
+                File file = new File(dir, name);
+                try{
+                    long length = TableArchive.compress(file, TableArchive.archiveOf(file));
+                    System.out.println(name + ": " + (file.length() >> 10) + "KB compressed to " + (length >> 10) + "KB");
+                }catch(IOException e){
+                    System.out.println("Error compressing " + name + ": " + e.getMessage());
+                    System.exit(1);
+                }
+            }
+        }
+        System.exit(loader.isHealthy() ? 0 : 1);
+    }
+}
@@ -0,0 +1,566 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import rubiksolverdef.*;
+
+/**
+ * This class loads the tables a SolverEngine needs in the background. Each
+ * table is loaded as soon as the tables it is built from are ready, so
+ * FlipUDSlice and CornerPerm load at the same time, and the pruning tables
+ * are mapped while the move tables are still being read. Each table has its
+ * own CompletableFuture, which completes when the table is ready.
+ *
+ * While the tables load, the loader can report which ones are ready, how
+ * long each one took and whether any of them failed. A solve that comes in
+ * before the engine is ready can wait for it with a timeout, or be solved
+ * by a DegradedSolver, which only needs the move tables. That matters most
+ * the first time the program runs, when the pruning tables take a couple of
+ * minutes to build and the move tables only a few seconds.
+ */
+public class TableLoader {
+    //the names of the tables, in the order they are loaded
+    public static final String MODEL = "Model";
+    public static final String FLIP = "FlipUDSlice";
+    public static final String PERM = "CornerPerm";
+    public static final String TABLE = "Table";
+    public static final String PRUNE = "PruningTable";
+    private static final String[] NAMES = {MODEL, FLIP, PERM, TABLE, PRUNE};
+
+    /**
+     * The states a table can be in
+     */
+    public enum TableState { LOADING, READY, FAILED }
+
+    public final CompletableFuture<RubikModel2> model;
+    public final CompletableFuture<FlipUDSlice> flip;
+    public final CompletableFuture<CornerPerm> perm;
+    public final CompletableFuture<TwistMoveTable> table;
+    public final CompletableFuture<PruningTables> prune;
+    public final CompletableFuture<SolverEngine> engine;
+
+    private final Executor executor;
+    //the future of each table, by name
+    private final LinkedHashMap<String, CompletableFuture<?>> tables;
+    //how long each table took to load, in milliseconds
+    private final ConcurrentHashMap<String, Long> times;
+    //the tables to build even if they can be read
+    private final Set<String> rebuild;
+    //the tables that had to be built
+    private final Set<String> built;
+    //whether any of the move tables had to be built, so tables.bin must be saved again
+    private final AtomicBoolean rebuilt;
+    //where to print the progress
+    private final PrintStream log;
+    //when the pruning tables started loading
+    private volatile long pruneStart;
+    //the degraded solver, once something has asked for it
+    private CompletableFuture<DegradedSolver> degraded;
+
+    /**
+     * This starts loading the tables on a few background threads of its own
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     */
+    public TableLoader(File dir, boolean packed){
+        this(dir, packed, System.out);
+    }
+
+    /**
+     * This starts loading the tables on a few background threads of its
+     * own, printing the progress to the given stream
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @param log - where to print the progress
+     */
+    public TableLoader(File dir, boolean packed, PrintStream log){
+        this(dir, packed, Executors.newCachedThreadPool(new ThreadFactory(){
+            public Thread newThread(Runnable r){
+                Thread t = new Thread(r, "table-loader");
+                //never keep the program running just to finish loading
+                t.setDaemon(true);
+                return t;
+            }
+        }), Collections.<String>emptySet(), log);
+    }
+
+    /**
+     * This starts loading the tables in the background. Any table that
+     * cannot be read from dir, is damaged, or was built by another version
+     * of the code is built from scratch and saved there, along with any
+     * table that depends on it.
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @param executor - the threads to load on
+     */
+    public TableLoader(File dir, boolean packed, Executor executor){
+        this(dir, packed, executor, Collections.<String>emptySet());
+    }
+
+    /**
+     * This starts loading the tables in the background, and builds the
+     * given tables from scratch even if they can be read. Each table that
+     * is built records a checksum of the sym coordinate classes it was built
+     * with, so a table that depends on one that is built again is only built
+     * again itself if the classes come out different.
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @param executor - the threads to load on
+     * @param rebuild - the names of the tables to build: FLIP, PERM, TABLE or PRUNE
+     */
+    public TableLoader(File dir, boolean packed, Executor executor, Set<String> rebuild){
+        this(dir, packed, executor, rebuild, System.out);
+    }
+
+    /**
+     * This starts loading the tables in the background, building the given
+     * tables from scratch, and prints the progress to the given stream
+     *
+     * @param dir - the directory holding the table files
+     * @param packed - true to use pruning tables that hold each distance mod 3
+     * @param executor - the threads to load on
+     * @param rebuild - the names of the tables to build: FLIP, PERM, TABLE or PRUNE
+     * @param log - where to print the progress
+     */
+    public TableLoader(final File dir, final boolean packed, final Executor executor, Set<String> rebuild, PrintStream log){
+        this.executor = executor;
+        this.log = log;
+        this.tables = new LinkedHashMap<String, CompletableFuture<?>>();
+        this.times = new ConcurrentHashMap<String, Long>();
+        this.rebuild = rebuild;
+        this.built = new ConcurrentSkipListSet<String>();
+        this.rebuilt = new AtomicBoolean();
+
+        model = CompletableFuture.supplyAsync(new Supplier<RubikModel2>(){
+            public RubikModel2 get(){
+                long start = System.currentTimeMillis();
+                //the model only takes a few milliseconds to set up, so it is not saved
+                RubikModel2 result = new RubikModel2();
+                loaded(MODEL, start);
+                return result;
+            }
+        }, executor);
+        final CompletableFuture<TableFile> moves = CompletableFuture.supplyAsync(new Supplier<TableFile>(){
+            public TableFile get(){
+                return map(new File(dir, "tables.bin"));
+            }
+        }, executor);
+        flip = model.thenCombineAsync(moves, new BiFunction<RubikModel2, TableFile, FlipUDSlice>(){
+            public FlipUDSlice apply(RubikModel2 m, TableFile file){
+                long start = System.currentTimeMillis();
+                FlipUDSlice result = null;
+                if(file != null && !rebuild.contains(FLIP)){
+                    try{
+                        result = new FlipUDSlice(m, file);
+                        log.println("FlipUDSlice read from file");
+                    }catch(IOException e){
+                        log.println("Error reading FlipUDSlice from file: " + e.getMessage());
+                    }
+                }
+                //if unable to read from file, will recalculate
+                if(result == null){
+                    result = new FlipUDSlice(m, log);
+                    built.add(FLIP);
+                    rebuilt.set(true);
+                }
+                loaded(FLIP, start);
+                return result;
+            }
+        }, executor);
+        perm = model.thenCombineAsync(moves, new BiFunction<RubikModel2, TableFile, CornerPerm>(){
+            public CornerPerm apply(RubikModel2 m, TableFile file){
+                long start = System.currentTimeMillis();
+                CornerPerm result = null;
+                if(file != null && !rebuild.contains(PERM)){
+                    try{
+                        result = new CornerPerm(m, file);
+                        log.println("CornerPerm read from file");
+                    }catch(IOException e){
+                        log.println("Error reading CornerPerm from file: " + e.getMessage());
+                    }
+                }
+                if(result == null){
+                    result = new CornerPerm(m, log);
+                    built.add(PERM);
+                    rebuilt.set(true);
+                }
+                loaded(PERM, start);
+                return result;
+            }
+        }, executor);
+        table = flip.thenCombineAsync(perm, new BiFunction<FlipUDSlice, CornerPerm, TwistMoveTable>(){
+            public TwistMoveTable apply(FlipUDSlice f, CornerPerm p){
+                long start = System.currentTimeMillis();
+                //flip and perm are only ready once both of these are
+                TableFile file = moves.join();
+                TwistMoveTable result = null;
+                if(file != null && !rebuild.contains(TABLE)){
+                    try{
+                        result = new TwistMoveTable(file, f, p);
+                        log.println("TwistMoveTable read from file");
+                    }catch(IOException e){
+                        log.println("Error reading TwistMoveTable from file: " + e.getMessage());
+                    }
+                }
+                if(result == null){
+                    result = new TwistMoveTable(model.join(), f, p, log);
+                    built.add(TABLE);
+                    rebuilt.set(true);
+                }
+                if(rebuilt.get()){
+                    TableFile out = new TableFile();
+                    f.addTo(out);
+                    p.addTo(out);
+                    result.addTo(out, f, p);
+                    write(new File(dir, "tables.bin"), out, "Move tables");
+                }
+                loaded(TABLE, start);
+                return result;
+            }
+        }, executor);
+        //the pruning tables only need the sizes of the sym coordinates to be read, but need the
+        //move tables to be built
+        final String pruneFile = packed ? "prune_packed.bin" : "prune.bin";
+        CompletableFuture<PruningTables> mapped = flip.thenCombineAsync(perm, new BiFunction<FlipUDSlice, CornerPerm, PruningTables>(){
+            public PruningTables apply(FlipUDSlice f, CornerPerm p){
+                pruneStart = System.currentTimeMillis();
+                TableFile file = rebuild.contains(PRUNE) ? null : map(new File(dir, pruneFile));
+                if(file != null){
+                    try{
+                        PruningTables result = new PruningTables(file, f, p, packed);
+                        log.println("PruningTables read from file");
+                        return result;
+                    }catch(IOException e){
+                        log.println("Error reading PruningTables from file: " + e.getMessage());
+                    }
+                }
+                return null;
+            }
+        }, executor);
+        prune = mapped.thenCompose(new Function<PruningTables, CompletionStage<PruningTables>>(){
+            public CompletionStage<PruningTables> apply(PruningTables p){
+                if(p != null){
+                    loaded(PRUNE, pruneStart);
+                    return CompletableFuture.completedFuture(p);
+                }
+                return table.thenApplyAsync(new Function<TwistMoveTable, PruningTables>(){
+                    public PruningTables apply(TwistMoveTable t){
+                        PruningTables result = new PruningTables(model.join(), flip.join(), t, perm.join(), packed, ForkJoinPool.commonPool(), log);
+                        built.add(PRUNE);
+                        TableFile out = new TableFile();
+                        result.addTo(out, flip.join(), perm.join());
+                        write(new File(dir, pruneFile), out, "PruningTables");
+                        loaded(PRUNE, pruneStart);
+                        return result;
+                    }
+                }, executor);
+            }
+        });
+        engine = CompletableFuture.allOf(model, flip, perm, table, prune).thenApply(new Function<Void, SolverEngine>(){
+            public SolverEngine apply(Void v){
+                for(String name : NAMES){
+                    log.println(name + " Initialization took " + times.get(name) + "ms");
+                }
+                PruningTables p = prune.join();
+                log.println("PruningTables take " + ((p.Phase1PruningTable.bytes() + p.Phase2PruningTable.bytes()) >> 20) + "MB");
+                return new SolverEngine(model.join(), flip.join(), perm.join(), table.join(), p);
+            }
+        });
+        tables.put(MODEL, model);
+        tables.put(FLIP, flip);
+        tables.put(PERM, perm);
+        tables.put(TABLE, table);
+        tables.put(PRUNE, prune);
+    }
+
+    /**
+     * Records how long a table took to load
+     *
+     * @param name - the name of the table
+     * @param start - when it started loading
+     */
+    private void loaded(String name, long start){
+        times.put(name, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Gets the state of one table
+     *
+     * @param name - the name of the table: MODEL, FLIP, PERM, TABLE or PRUNE
+     * @return - whether it is still loading, ready or failed
+     */
+    public TableState state(String name){
+        CompletableFuture<?> future = tables.get(name);
+        if(future == null){
+            throw new IllegalArgumentException("no table " + name);
+        }
+        return state(future);
+    }
+
+    /**
+     * Gets the state of a future
+     *
+     * @param future - the future
+     * @return - whether it is still running, done or failed
+     */
+    private static TableState state(CompletableFuture<?> future){
+        if(!future.isDone()){
+            return TableState.LOADING;
+        }
+        return future.isCompletedExceptionally() ? TableState.FAILED : TableState.READY;
+    }
+
+    /**
+     * @return - true once every table is loaded and the engine can solve
+     */
+    public boolean isReady(){
+        return state(engine) == TableState.READY;
+    }
+
+    /**
+     * @return - true unless a table has failed to load
+     */
+    public boolean isHealthy(){
+        for(CompletableFuture<?> future : tables.values()){
+            if(state(future) == TableState.FAILED){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return - true once a degraded solve can be done without waiting
+     */
+    public boolean isDegradedReady(){
+        return state(table) == TableState.READY && state(model) == TableState.READY;
+    }
+
+    /**
+     * @return - how long each table that has loaded took, in milliseconds, in load order
+     */
+    public Map<String, Long> loadTimes(){
+        LinkedHashMap<String, Long> result = new LinkedHashMap<String, Long>();
+        for(String name : tables.keySet()){
+            Long time = times.get(name);
+            if(time != null){
+                result.put(name, time);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return - the names of the tables that could not be read, or were asked to be, and so were built
+     */
+    public Set<String> built(){
+        return Collections.unmodifiableSet(built);
+    }
+
+    /**
+     * @return - one line for each table with its state, and its load time or why it failed
+     */
+    public String status(){
+        StringBuilder out = new StringBuilder();
+        for(Map.Entry<String, CompletableFuture<?>> entry : tables.entrySet()){
+            TableState s = state(entry.getValue());
+            out.append(entry.getKey()).append(' ').append(s);
+            if(s == TableState.READY){
+                out.append(' ').append(times.get(entry.getKey())).append("ms");
+            }else if(s == TableState.FAILED){
+                out.append(' ').append(cause(entry.getValue()));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Finds why a future failed
+     *
+     * @param future - a future that failed
+     * @return - the exception it failed with
+     */
+    private static Throwable cause(CompletableFuture<?> future){
+        try{
+            future.join();
+            return null;
+        }catch(CompletionException e){
+            return e.getCause();
+        }catch(CancellationException e){
+            return e;
+        }
+    }
+
+    /**
+     * Waits for the engine, however long it takes
+     *
+     * @return - the engine
+     * @throws IllegalStateException - if a table failed to load
+     */
+    public SolverEngine awaitEngine(){
+        try{
+            return engine.join();
+        }catch(CompletionException e){
+            throw new IllegalStateException("tables failed to load", e.getCause());
+        }
+    }
+
+    /**
+     * Waits for the engine, but only up to a timeout
+     *
+     * @param timeout - how long to wait
+     * @param unit - the unit of the timeout
+     * @return - the engine
+     * @throws TimeoutException - if the engine is not ready in time
+     * @throws InterruptedException - if the thread is interrupted while waiting
+     * @throws IllegalStateException - if a table failed to load
+     */
+    public SolverEngine awaitEngine(long timeout, TimeUnit unit) throws TimeoutException, InterruptedException{
+        return await(engine, timeout, unit);
+    }
+
+    /**
+     * Gets the degraded solver, which starts building its small pruning
+     * tables the first time this is called
+     *
+     * @return - the future of the degraded solver
+     */
+    public synchronized CompletableFuture<DegradedSolver> degradedSolver(){
+        if(degraded == null){
+            degraded = model.thenCombineAsync(table, new BiFunction<RubikModel2, TwistMoveTable, DegradedSolver>(){
+                public DegradedSolver apply(RubikModel2 m, TwistMoveTable t){
+                    return new DegradedSolver(m, t);
+                }
+            }, executor);
+        }
+        return degraded;
+    }
+
+    /**
+     * Solves a cube as soon as the tables allow. If the engine is ready the
+     * cube is solved by it. If not, and degraded solves are allowed, it is
+     * solved by the degraded solver once the move tables are ready, and
+     * otherwise it waits for the engine.
+     *
+     * @param cc - the cube to solve
+     * @param timeout - how long to wait for the tables
+     * @param unit - the unit of the timeout
+     * @param allowDegraded - true to solve with the degraded solver rather than wait for the engine
+     * @return - the solution, or null if the cube cannot be solved
+     * @throws TimeoutException - if the tables needed are not ready in time
+     * @throws InterruptedException - if the thread is interrupted while waiting
+     * @throws IllegalStateException - if a table failed to load
+     */
+    public Solution solve(CubieCube cc, long timeout, TimeUnit unit, boolean allowDegraded) throws TimeoutException, InterruptedException{
+        if(isReady() || !allowDegraded){
+            return await(engine, timeout, unit).solve(cc);
+        }
+        return await(degradedSolver(), timeout, unit).solve(cc);
+    }
+
+    /**
+     * Waits for a future, but only up to a timeout
+     *
+     * @param future - the future
+     * @param timeout - how long to wait
+     * @param unit - the unit of the timeout
+     * @return - its value
+     * @throws TimeoutException - if it is not done in time
+     * @throws InterruptedException - if the thread is interrupted while waiting
+     * @throws IllegalStateException - if it failed
+     */
+    private static <T> T await(CompletableFuture<T> future, long timeout, TimeUnit unit) throws TimeoutException, InterruptedException{
+        try{
+            return future.get(timeout, unit);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("tables failed to load", e.getCause());
+        }
+    }
+
+    /**
+     * Maps a table file into memory. If the file is missing but there is
+     * an archive of it, it is expanded from the archive first, which takes
+     * seconds instead of the minutes it takes to build the tables.
+     *
+     * @param input - the file to map
+     * @return - the mapped file, or null if it could not be read
+     */
+    private TableFile map(File input){
+        File archive = TableArchive.archiveOf(input);
+        if(!input.exists() && archive.exists()){
+            long start = System.currentTimeMillis();
+            try{
+                TableArchive.expand(archive, input);
+                log.println(input.getName() + " expanded from " + archive.getName() + " in "
+                        + (System.currentTimeMillis() - start) + "ms");
+            }catch(IOException e){
+                log.println("Error expanding " + archive.getName() + ": " + e.getMessage());
+            }
+        }
+        if(!input.exists()){
+            log.println(input.getName() + " not found");
+            return null;
+        }
+        try{
+            return TableFile.map(input);
+        }catch(IOException e){
+            log.println("Error reading " + input.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves tables to a table file
+     *
+     * @param output - the file to write
+     * @param file - the tables
+     * @param name - the name of the tables, for messages
+     */
+    private void write(File output, TableFile file, String name){
+        try{
+            file.write(output);
+            log.println(name + " created and saved");
+        }catch(IOException e){
+            log.println("Error writing " + name);
+            e.printStackTrace();
+        }
+    }
+}
@@ -11,6 +11,8 @@
 
 package rubiksolver;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Serializable;
 import rubiksolverdef.*;
 
@@ -21,23 +23,39 @@ import rubiksolver.RubikModel2.*;
  * This class represents the move tables for all raw and sym coordinates
  */
 public class TwistMoveTable implements Serializable{
+    //the number of moves. The move tables are flat arrays, so the entry for
+    //coordinate c and move m is at (c * MOVES) + m. Every coordinate but
+    //FlipUDSlice (64430 * 16) fits in a char, so those tables use half the memory
+    public static final int MOVES = 18;
+
+    //the number of symmetries. The symmetry tables are flat arrays too, with the
+    //entry for coordinate c and symmetry s at (c * SYMS) + s
+    public static final int SYMS = 16;
+
+    //changes whenever the layout of any of the tables changes, so saved tables are built again
+    public static final int VERSION = 2;
+
     //phase 1
-    public int[][] CornOriTwistMove;
-    public int[][] CornOriSym;
-    public int[][] EdgeOriTwistMove;
-    public int[][] UDSliceTwistMove;
-    public int[][] FlipUDSliceTwistMove;
-    public int[][] FlipUDSliceSym;
-    public int[][] FlipUDSliceSymInv;
-
-    //phase 2
-    public int[][] P2EdgePermTwistMove;
-    public int[][] P2EdgePermSym;
-    public int[][] P2UDSliceTwistMove;
-    public int[][] P2CornPermTwistMove;
-    public int[][] P2CornPermRawTwistMove;
-    public int[][] P2CornPermSym;
-    public int[][] P2CornPermSymInv;
+    public char[] CornOriTwistMove;
+    public char[] CornOriSym;
+    public char[] EdgeOriTwistMove;
+    public char[] UDSliceTwistMove;
+    public int[] FlipUDSliceTwistMove;
+    public int[] FlipUDSliceSym;
+    public int[] FlipUDSliceSymInv;
+    //for each raw FlipUDSlice coordinate (UDSlice * 2048 + EdgeOri), the sym index that gives it from its class
+    public byte[] FlipUDSliceRawSym;
+
+    //phase 2, where only the entries of the phase 2 moves are filled in and the rest are left 0
+    public char[] P2EdgePermTwistMove;
+    public char[] P2EdgePermSym;
+    public char[] P2UDSliceTwistMove;
+    public char[] P2CornPermTwistMove;
+    public char[] P2CornPermRawTwistMove;
+    public char[] P2CornPermSym;
+    public char[] P2CornPermSymInv;
+    //for each raw Corner Permutation coordinate, the sym index that gives it from its class
+    public byte[] P2CornPermRawSym;
 
     /**
      * This function creates the move tables
@@ -47,13 +65,30 @@ public class TwistMoveTable implements Serializable{
      * @param perm - a CornerPerm table
      */
     public TwistMoveTable(RubikModel2 model, FlipUDSlice flip, CornerPerm perm){
+        this(model, flip, perm, System.out);
+    }
+
+    /**
+     * This function creates the move tables, printing the progress to the
+     * given stream
+     *
+     * @param model - a RubikModel2
+     * @param flip - a FlipUDSlice Table
+     * @param perm - a CornerPerm table
+     * @param log - where to print the progress
+     */
+    public TwistMoveTable(RubikModel2 model, FlipUDSlice flip, CornerPerm perm, PrintStream log){
         //PHASE 1
-        System.out.println("Initializing Move Tables:" );
+        log.println("Initializing Move Tables:" );
 
+        //the cubes are ByteCubes that are reused, so no cube is made per entry
+        ByteCube c = new ByteCube();
+        ByteCube next = new ByteCube();
+        ByteCube temp = new ByteCube();
 
-        CornOriTwistMove = new int[2187][Move.values().length];
-        CornOriSym = new int[2187][16];
-        CubieCube c = new CubieCube(true);
+
+        CornOriTwistMove = new char[2187 * MOVES];
+        CornOriSym = new char[2187 * SYMS];
         int max = 0;
         int min = Integer.MAX_VALUE;
         //for each possible value
@@ -61,239 +96,293 @@ public class TwistMoveTable implements Serializable{
             //Create a cube with that coordinate
             c.InvCoord(i, 0);
             //apply all 18 moves to that cube
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    int temp = model.CornOriCoord(c.c);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    //store the result in the table
-                    CornOriTwistMove[i][(3 * j.ordinal()) + k] = temp;
-                }
-                c = model.DoMove(c, j);
+            for(int m = 0; m < MOVES; m++){
+                model.DoMove(c, m, next);
+                int coord = next.CornOriCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                //store the result in the table
+                CornOriTwistMove[(i * MOVES) + m] = (char)coord;
             }
             //also apply all 16 symmetries to the cube
             for(int j = 0; j < 16; j++){
-                CubieCube tempC = model.SthenSinv(c, j);
-                int temp = model.CornOriCoord(tempC.c);
+                model.SthenSinv(c, j, temp, next);
                 //store the result in the table
-                CornOriSym[i][j] = temp;
+                CornOriSym[(i * SYMS) + j] = (char)next.CornOriCoord();
             }
         }
-        System.out.println("  CornOriCoord Range: " + min + " - " + max);
+        log.println("  CornOriCoord Range: " + min + " - " + max);
 
 
         max = 0;
         min = Integer.MAX_VALUE;
-        EdgeOriTwistMove = new int[2048][Move.values().length];
-        c = new CubieCube(true);
+        EdgeOriTwistMove = new char[2048 * MOVES];
+        c = new ByteCube();
         for(int i = 0; i < 2048; i++){ 
             c.InvCoord(0, i);
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    int temp = model.EdgeOriCoord(c.e);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    EdgeOriTwistMove[i][(3 * j.ordinal()) + k] = temp;
-                }
-                c = model.DoMove(c, j);
+            for(int m = 0; m < MOVES; m++){
+                model.DoMove(c, m, next);
+                int coord = next.EdgeOriCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                EdgeOriTwistMove[(i * MOVES) + m] = (char)coord;
             }
         }
-        System.out.println("  EdgeOriCoord Range: " + min + " - " + max);
+        log.println("  EdgeOriCoord Range: " + min + " - " + max);
 
 
         max = 0;
         min = Integer.MAX_VALUE;
-        UDSliceTwistMove = new int[495][Move.values().length];
-        c = new CubieCube(true);
+        UDSliceTwistMove = new char[495 * MOVES];
+        c = new ByteCube();
         for(int i = 0; i < 495; i++){ 
             c.InvCoord(i);
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    int temp = model.UDSliceCoord(c);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    UDSliceTwistMove[i][(3 * j.ordinal()) + k] = temp;
-                }
-                c = model.DoMove(c, j);
+            for(int m = 0; m < MOVES; m++){
+                model.DoMove(c, m, next);
+                int coord = next.UDSliceCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                UDSliceTwistMove[(i * MOVES) + m] = (char)coord;
             }
         }
-        System.out.println("  UDSliceCoord Range: " + min + " - " + max);
-        System.out.print("  Calculating FlipUDSlice Tables: [");
+        log.println("  UDSliceCoord Range: " + min + " - " + max);
+        log.print("  Calculating FlipUDSlice Tables: [");
 
 
         max = 0;
         min = Integer.MAX_VALUE;
-        FlipUDSliceTwistMove = new int[64430][Move.values().length];
-        FlipUDSliceSym = new int[64430][16];
-        FlipUDSliceSymInv = new int[64430][16];
-        c = new CubieCube(true);
+        FlipUDSliceTwistMove = new int[64430 * MOVES];
+        FlipUDSliceSym = new int[64430 * SYMS];
+        FlipUDSliceSymInv = new int[64430 * SYMS];
         for(int i = 0; i < flip.size; i++){
             int n = flip.FlipUDSliceToRaw[i][0];
             int oldUDSliceCoord = (int)(n / 2048);
             int oldEdgeOriCoord = (int)(n % 2048);
             for(int j = 0; j < 6 * 3; j++){
-                int newUDSliceCoord = UDSliceTwistMove[oldUDSliceCoord][j];
-                int newEdgeOriCoord = EdgeOriTwistMove[oldEdgeOriCoord][j];
-                c = new CubieCube(true);
-                c.InvCoord(newUDSliceCoord);
-                c.InvCoord(0, newEdgeOriCoord);
-                int temp = flip.FlipUDSliceCoord(c);
-                if(temp > max) max = temp;
-                if(temp < min) min = temp;
-                FlipUDSliceTwistMove[i][j] = temp;
+                int newUDSliceCoord = UDSliceTwistMove[(oldUDSliceCoord * MOVES) + j];
+                int newEdgeOriCoord = EdgeOriTwistMove[(oldEdgeOriCoord * MOVES) + j];
+                int coord = flip.RawToFlipUDSlice[(newUDSliceCoord * 2048) + newEdgeOriCoord];
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                FlipUDSliceTwistMove[(i * MOVES) + j] = coord;
             }
             for(int j = 0; j < 16; j++){
-                c = new CubieCube(true);
-                c.InvCoord(oldUDSliceCoord);
-                c.InvCoord(0, oldEdgeOriCoord);
-                CubieCube tempC = model.SthenSinv(c, j);
-                int newUDSliceCoord = model.UDSliceCoord(tempC);
-                int newEdgeOriCoord = model.EdgeOriCoord(tempC.e);
-                int temp = (newUDSliceCoord * 2048) + newEdgeOriCoord;
-                FlipUDSliceSym[i][j] = temp;
-            }
-            for(int j = 0; j < 16; j++){
-                c = new CubieCube(true);
-                c.InvCoord(oldUDSliceCoord);
-                c.InvCoord(0, oldEdgeOriCoord);
-                CubieCube tempC = model.SinvThenS(c, j);
-                int newUDSliceCoord = model.UDSliceCoord(tempC);
-                int newEdgeOriCoord = model.EdgeOriCoord(tempC.e);
-                int temp = (newUDSliceCoord * 2048) + newEdgeOriCoord;
-                FlipUDSliceSymInv[i][j] = temp;
+                FlipUDSliceSym[(i * SYMS) + j] = model.FlipUDSliceConj(n, j);
+                FlipUDSliceSymInv[(i * SYMS) + j] = model.FlipUDSliceConj(n, model.SymInvIndex[j]);
             }
             if(i % 3220 == 0){
-                System.out.print("=");
+                log.print("=");
             }
         }
-        System.out.println("] Done!");
-        System.out.println("  FlipUDSliceCoord Range: " + min + " - " + max);
+        log.println("] Done!");
+        log.println("  FlipUDSliceCoord Range: " + min + " - " + max);
+        FlipUDSliceRawSym = RawSymTable(FlipUDSliceSymInv, flip.size, 495 * 2048);
 
 
         //PHASE 2
-        P2EdgePermTwistMove = new int[40320][Move.values().length];
-        P2EdgePermSym = new int[40320][16];
-        c = new CubieCube(true);
+        P2EdgePermTwistMove = new char[40320 * MOVES];
+        P2EdgePermSym = new char[40320 * SYMS];
+        c = new ByteCube();
         max = 0;
         min = Integer.MAX_VALUE;
         for(int i = 0; i < 40320; i++){
             c.InvEdgeCoord(i);
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    if(j != TurnAxis.U && j != TurnAxis.D){
-                        if(k != 1){
-                            continue;
-                        }
-                    }
-                    int temp = model.Phase2EdgePermCoord(c);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    P2EdgePermTwistMove[i][(3 * j.ordinal()) + k] = temp;
+            for(int m = 0; m < MOVES; m++){
+                if(!RubikSolver2.IsPhase2Move(m)){
+                    continue;
                 }
-                c = model.DoMove(c, j);
+                model.DoMove(c, m, next);
+                int coord = next.Phase2EdgePermCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                P2EdgePermTwistMove[(i * MOVES) + m] = (char)coord;
             }
             for(int j = 0; j < 16; j++){
-                CubieCube tempC = model.SthenSinv(c, j);
-                int temp = model.Phase2EdgePermCoord(tempC);
-                P2EdgePermSym[i][j] = temp;
+                model.SthenSinv(c, j, temp, next);
+                P2EdgePermSym[(i * SYMS) + j] = (char)next.Phase2EdgePermCoord();
             }
         }
-        System.out.println("  Phase2EdgePermCoord Range: " + min + " - " + max);
+        log.println("  Phase2EdgePermCoord Range: " + min + " - " + max);
 
 
-        P2UDSliceTwistMove = new int[24][Move.values().length];
-        c = new CubieCube(true);
+        P2UDSliceTwistMove = new char[24 * MOVES];
+        c = new ByteCube();
         max = 0;
         min = Integer.MAX_VALUE;
         for(int i = 0; i < 24; i++){
             c.InvP2UDSliceCoord(i);
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    if(j != TurnAxis.U && j != TurnAxis.D){
-                        if(k != 1){
-                            continue;
-                        }
-                    }
-                    int temp = model.UDSliceSortedCoord(c);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    P2UDSliceTwistMove[i][(3 * j.ordinal()) + k] = temp;
+            for(int m = 0; m < MOVES; m++){
+                if(!RubikSolver2.IsPhase2Move(m)){
+                    continue;
                 }
-                c = model.DoMove(c, j);
+                model.DoMove(c, m, next);
+                int coord = next.UDSliceSortedCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                P2UDSliceTwistMove[(i * MOVES) + m] = (char)coord;
             }
         }
-        System.out.println("  Phase2UDSliceCoord Range: " + min + " - " + max);
+        log.println("  Phase2UDSliceCoord Range: " + min + " - " + max);
 
 
-        P2CornPermRawTwistMove = new int[40320][Move.values().length];
-        c = new CubieCube(true);
+        P2CornPermRawTwistMove = new char[40320 * MOVES];
+        c = new ByteCube();
         max = 0;
         min = Integer.MAX_VALUE;
         for(int i = 0; i < 40320; i++){
             c.InvCornCoord(i);
-            for(TurnAxis j : TurnAxis.values()){
-                for(int k = 0; k < 3; k++){
-                    c = model.DoMove(c, j);
-                    if(j != TurnAxis.U && j != TurnAxis.D){
-                        if(k != 1){
-                            continue;
-                        }
-                    }
-                    int temp = model.CornPermCoord(c.c);
-                    if(temp > max) max = temp;
-                    if(temp < min) min = temp;
-                    P2CornPermRawTwistMove[i][(3 * j.ordinal()) + k] = temp;
+            for(int m = 0; m < MOVES; m++){
+                if(!RubikSolver2.IsPhase2Move(m)){
+                    continue;
                 }
-                c = model.DoMove(c, j);
+                model.DoMove(c, m, next);
+                int coord = next.CornPermCoord();
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                P2CornPermRawTwistMove[(i * MOVES) + m] = (char)coord;
             }
         }
-        System.out.println("  CornPermRawCoord Range: " + min + " - " + max);
+        log.println("  CornPermRawCoord Range: " + min + " - " + max);
 
 
-        System.out.print("  Calculating CornerPerm Tables: [");
+        log.print("  Calculating CornerPerm Tables: [");
         max = 0;
         min = Integer.MAX_VALUE;
-        P2CornPermTwistMove = new int[perm.size][Move.values().length];
-        P2CornPermSym = new int[perm.size][16];
-        P2CornPermSymInv = new int[perm.size][16];
-        c = new CubieCube(true);
+        P2CornPermTwistMove = new char[perm.size * MOVES];
+        P2CornPermSym = new char[perm.size * SYMS];
+        P2CornPermSymInv = new char[perm.size * SYMS];
         for(int i = 0; i < perm.size; i++){
             int OldCornPermCoord = perm.CornPermToRaw[i][0];
             for(int j = 0; j < 6 * 3; j++){
-                int newCornPermCoord = P2CornPermRawTwistMove[OldCornPermCoord][j];
-                c = new CubieCube(true);
-                c.InvCornCoord(newCornPermCoord);
-                int temp = perm.CornPermCoord(c);
-                if(temp > max) max = temp;
-                if(temp < min) min = temp;
-                P2CornPermTwistMove[i][j] = temp;
-            }
-            for(int j = 0; j < 16; j++){
-                c = new CubieCube(true);
-                c.InvCornCoord(OldCornPermCoord);
-                CubieCube tempC = model.SthenSinv(c, j);
-                int newCornPermCoord = model.CornPermCoord(tempC.c);
-                P2CornPermSym[i][j] = newCornPermCoord;
+                int newCornPermCoord = P2CornPermRawTwistMove[(OldCornPermCoord * MOVES) + j];
+                int coord = perm.RawToCornPerm[newCornPermCoord];
+                if(coord > max) max = coord;
+                if(coord < min) min = coord;
+                P2CornPermTwistMove[(i * MOVES) + j] = (char)coord;
             }
             for(int j = 0; j < 16; j++){
-                c = new CubieCube(true);
-                c.InvCornCoord(OldCornPermCoord);
-                CubieCube tempC = model.SinvThenS(c, j);
-                int newCornPermCoord = model.CornPermCoord(tempC.c);
-                P2CornPermSymInv[i][j] = newCornPermCoord;
+                P2CornPermSym[(i * SYMS) + j] = (char)model.CornPermConj[(OldCornPermCoord * 48) + j];
+                P2CornPermSymInv[(i * SYMS) + j] = (char)model.CornPermConj[(OldCornPermCoord * 48) + model.SymInvIndex[j]];
             }
             if(i % 138 == 0){
-                System.out.print("=");
+                log.print("=");
+            }
+        }
+        log.println("] Done!");
+        log.println("  CornerPermCoord Range: " + min + " - " + max);
+        P2CornPermRawSym = RawSymTable(P2CornPermSymInv, perm.size, 40320);
+
+        log.println("Done Calculating Move Tables!");
+    }
+
+    /**
+     * This function reads the move tables from a table file written by addTo.
+     * They are copied onto the heap, since the search looks them up more
+     * than anything else.
+     *
+     * @param file - the table file
+     * @param flip - the FlipUDSlice table the file must have been built from
+     * @param perm - the CornerPerm table the file must have been built from
+     * @throws IOException - if the file does not hold the tables, or they were built another way
+     */
+    public TwistMoveTable(TableFile file, FlipUDSlice flip, CornerPerm perm) throws IOException{
+        file.expect("TwistMoveTable.version", VERSION);
+        file.expect("TwistMoveTable.moves", MOVES);
+        file.expect("TwistMoveTable.FlipUDSlice", flip.checksum());
+        file.expect("TwistMoveTable.CornerPerm", perm.checksum());
+        CornOriTwistMove = file.charArray("CornOriTwistMove");
+        CornOriSym = file.charArray("CornOriSym");
+        EdgeOriTwistMove = file.charArray("EdgeOriTwistMove");
+        UDSliceTwistMove = file.charArray("UDSliceTwistMove");
+        FlipUDSliceTwistMove = file.intArray("FlipUDSliceTwistMove");
+        FlipUDSliceSym = file.intArray("FlipUDSliceSym");
+        FlipUDSliceSymInv = file.intArray("FlipUDSliceSymInv");
+        FlipUDSliceRawSym = file.byteArray("FlipUDSliceRawSym");
+        P2EdgePermTwistMove = file.charArray("P2EdgePermTwistMove");
+        P2EdgePermSym = file.charArray("P2EdgePermSym");
+        P2UDSliceTwistMove = file.charArray("P2UDSliceTwistMove");
+        P2CornPermTwistMove = file.charArray("P2CornPermTwistMove");
+        P2CornPermRawTwistMove = file.charArray("P2CornPermRawTwistMove");
+        P2CornPermSym = file.charArray("P2CornPermSym");
+        P2CornPermSymInv = file.charArray("P2CornPermSymInv");
+        P2CornPermRawSym = file.byteArray("P2CornPermRawSym");
+        if(FlipUDSliceTwistMove.length != flip.size * MOVES || FlipUDSliceSymInv.length != flip.size * SYMS
+                || P2CornPermTwistMove.length != perm.size * MOVES || P2CornPermSymInv.length != perm.size * SYMS){
+            throw new IOException("move tables do not match the sym coordinates");
+        }
+    }
+
+    /**
+     * This function adds the move tables to a table file that is about to be written
+     *
+     * @param file - the table file
+     * @param flip - the FlipUDSlice table they were built from
+     * @param perm - the CornerPerm table they were built from
+     */
+    public void addTo(TableFile file, FlipUDSlice flip, CornerPerm perm){
+        file.put("TwistMoveTable.version", VERSION);
+        file.put("TwistMoveTable.moves", MOVES);
+        file.put("TwistMoveTable.FlipUDSlice", flip.checksum());
+        file.put("TwistMoveTable.CornerPerm", perm.checksum());
+        file.add("CornOriTwistMove", CornOriTwistMove);
+        file.add("CornOriSym", 2187, SYMS, CornOriSym);
+        file.add("EdgeOriTwistMove", EdgeOriTwistMove);
+        file.add("UDSliceTwistMove", UDSliceTwistMove);
+        file.add("FlipUDSliceTwistMove", FlipUDSliceTwistMove);
+        file.add("FlipUDSliceSym", flip.size, SYMS, FlipUDSliceSym);
+        file.add("FlipUDSliceSymInv", flip.size, SYMS, FlipUDSliceSymInv);
+        file.add("FlipUDSliceRawSym", FlipUDSliceRawSym);
+        file.add("P2EdgePermTwistMove", P2EdgePermTwistMove);
+        file.add("P2EdgePermSym", 40320, SYMS, P2EdgePermSym);
+        file.add("P2UDSliceTwistMove", P2UDSliceTwistMove);
+        file.add("P2CornPermTwistMove", P2CornPermTwistMove);
+        file.add("P2CornPermRawTwistMove", P2CornPermRawTwistMove);
+        file.add("P2CornPermSym", perm.size, SYMS, P2CornPermSym);
+        file.add("P2CornPermSymInv", perm.size, SYMS, P2CornPermSymInv);
+        file.add("P2CornPermRawSym", P2CornPermRawSym);
+    }
+
+    /**
+     * This builds the table that fixes up the symmetry index after a move.
+     * The sym move tables give the class of the new cube straight away, but
+     * the symmetry that combines with the old one does not always give the
+     * new raw coordinate, because some classes are symmetric to themselves.
+     * Instead of trying all 16 symmetries to find one that does, the search
+     * looks it up here by the raw coordinate it is after.
+     *
+     * @param symInv - for each class and symmetry, the raw coordinate it gives
+     * @param classes - the number of classes
+     * @param rawSize - the number of raw coordinates
+     * @return - for each raw coordinate, the first symmetry of its class that gives it
+     */
+    private static byte[] RawSymTable(int[] symInv, int classes, int rawSize){
+        byte[] rawSym = new byte[rawSize];
+        java.util.Arrays.fill(rawSym, (byte)-1);
+        for(int i = 0; i < classes * SYMS; i++){
+            if(rawSym[symInv[i]] < 0){
+                rawSym[symInv[i]] = (byte)(i % SYMS);
             }
         }
-        System.out.println("] Done!");
-        System.out.println("  CornerPermCoord Range: " + min + " - " + max);
+        return rawSym;
+    }
 
-        System.out.println("Done Calculating Move Tables!");
+    /**
+     * This builds the table that fixes up the symmetry index after a move,
+     * the same way as for a table of ints
+     *
+     * @param symInv - for each class and symmetry, the raw coordinate it gives
+     * @param classes - the number of classes
+     * @param rawSize - the number of raw coordinates
+     * @return - for each raw coordinate, the first symmetry of its class that gives it
+     */
+    private static byte[] RawSymTable(char[] symInv, int classes, int rawSize){
+        byte[] rawSym = new byte[rawSize];
+        java.util.Arrays.fill(rawSym, (byte)-1);
+        for(int i = 0; i < classes * SYMS; i++){
+            if(rawSym[symInv[i]] < 0){
+                rawSym[symInv[i]] = (byte)(i % SYMS);
+            }
+        }
+        return rawSym;
     }
 }
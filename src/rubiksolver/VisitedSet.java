@@ -0,0 +1,142 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+/**
+ * This class is a set of packed coordinate keys used to remember which
+ * cubes have already been visited by the solver. It uses open addressing
+ * with linear probing over a primitive long array, so adding or checking a
+ * key never creates an object.
+ *
+ * Instead of wiping the whole array, clear() just starts a new generation.
+ * Any slot stamped with an older generation counts as empty, so the set
+ * can be cleared and reused between solves for free.
+ */
+public class VisitedSet {
+    private long[] keys;
+    private int[] stamps;
+    private int generation;
+    private int size;
+    private int mask;
+
+    /**
+     * This constructor creates an empty set
+     *
+     * @param capacity - the number of keys expected (the table grows if needed)
+     */
+    public VisitedSet(int capacity){
+        int cap = 16;
+        while(cap < capacity * 2){
+            cap = cap * 2;
+        }
+        keys = new long[cap];
+        stamps = new int[cap];
+        mask = cap - 1;
+        generation = 1;
+        size = 0;
+    }
+
+    /**
+     * Empties the set without touching the underlying arrays
+     */
+    public void clear(){
+        size = 0;
+        generation++;
+        if(generation == 0){
+            //stamps have wrapped around, so actually wipe them
+            java.util.Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Adds a key to the set
+     *
+     * @param key - the packed coordinates
+     * @return true if the key was not already in the set
+     */
+    public boolean add(long key){
+        int i = slot(key);
+        while(stamps[i] == generation){
+            if(keys[i] == key){
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        stamps[i] = generation;
+        size++;
+        if(size * 2 > keys.length){
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks to see if the given key is in the set
+     *
+     * @param key - the packed coordinates
+     * @return true if the key is in the set
+     */
+    public boolean contains(long key){
+        int i = slot(key);
+        while(stamps[i] == generation){
+            if(keys[i] == key){
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of keys in the set
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Finds the home slot of a key
+     *
+     * @param key - the packed coordinates
+     * @return the index to start probing at
+     */
+    private int slot(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Doubles the size of the table. This only happens when a solve visits
+     * more cubes than any solve before it, so it is not done per insert.
+     */
+    private void grow(){
+        long[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        int oldGen = generation;
+        keys = new long[oldKeys.length * 2];
+        stamps = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        generation = 1;
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldStamps[j] == oldGen){
+                int i = slot(oldKeys[j]);
+                while(stamps[i] == generation){
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                stamps[i] = generation;
+            }
+        }
+    }
+}
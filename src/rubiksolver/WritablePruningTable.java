@@ -0,0 +1,71 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver;
+
+/**
+ * This class is a pruning table that is built in memory. The builder fills
+ * it in one depth at a time, and then it can be saved to a table file.
+ */
+public abstract class WritablePruningTable extends PruningTable {
+
+    /**
+     * This constructor creates an empty table
+     *
+     * @param rows - the number of sym coordinates
+     * @param cols - the number of raw coordinates
+     */
+    protected WritablePruningTable(int rows, int cols){
+        super(rows, cols);
+    }
+
+    /**
+     * Checks whether a cube has been given a distance yet
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @return - true if it has not
+     */
+    abstract boolean isEmpty(int row, int col);
+
+    /**
+     * Checks whether a cube may be at the given distance. The builder
+     * expands every cube this is true for, which may include some cubes
+     * closer than that. Their neighbors are all set already, so that is
+     * only wasted time.
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if the table holds the same thing for the cube as it would for that distance
+     */
+    abstract boolean matches(int row, int col, int depth);
+
+    /**
+     * Stores the distance of a cube, unless it already has one. Any number
+     * of threads may call this at once, and only one of them wins for each
+     * cube.
+     *
+     * @param row - the sym coordinate
+     * @param col - the raw coordinate
+     * @param depth - the distance
+     * @return - true if this call stored the distance
+     */
+    abstract boolean trySet(int row, int col, int depth);
+
+    /**
+     * Adds the table to a table file that is about to be written
+     *
+     * @param file - the file
+     * @param name - the name of its section
+     */
+    abstract void addTo(TableFile file, String name);
+}
@@ -0,0 +1,110 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import rubiksolver.*;
+import rubiksolverdef.*;
+
+/**
+ * This microbenchmark measures RubikModel2.CanonicalKey and checks it. Every
+ * cube within a few moves of solved is visited breadth first, and the cubes
+ * and keys at each distance are counted, which should match the published
+ * counts of positions and of positions up to symmetry and inversion
+ * (1, 18, 243, 3240, 43239, ... and 1, 2, 8, 48, 509, ...). Random cubes
+ * are then checked to get the same key under every symmetry and inversion,
+ * and the canonical cube of each key to have the coordinates of the key.
+ *
+ * Usage: java rubiksolver.bench.CanonicalKeyBenchmark [depth] [cubes]
+ */
+public class CanonicalKeyBenchmark {
+
+    public static void main(String[] args){
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        int count = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+        RubikModel2 model = new RubikModel2();
+        boolean same = true;
+
+        //breadth first from solved, keeping every cube seen so far by its own coordinates
+        HashSet<CubeKey> seen = new HashSet<CubeKey>();
+        ArrayList<ByteCube> level = new ArrayList<ByteCube>();
+        level.add(new ByteCube());
+        seen.add(RawKey(level.get(0)));
+        for(int d = 0; d <= depth; d++){
+            HashSet<CubeKey> classes = new HashSet<CubeKey>();
+            for(ByteCube c : level){
+                classes.add(model.CanonicalKey(c));
+            }
+            System.out.println("Distance " + d + ": " + level.size() + " cubes, " + classes.size() + " keys");
+            if(d == depth){
+                break;
+            }
+            ArrayList<ByteCube> next = new ArrayList<ByteCube>();
+            for(ByteCube c : level){
+                for(int m = 0; m < 18; m++){
+                    ByteCube moved = new ByteCube();
+                    model.DoMove(c, m, moved);
+                    if(seen.add(RawKey(moved))){
+                        next.add(moved);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        //random cubes, each 20 random moves from the one before
+        Random random = new Random(1);
+        ByteCube[] cubes = new ByteCube[count];
+        ByteCube cc = new ByteCube();
+        for(int i = 0; i < count; i++){
+            for(int j = 0; j < 20; j++){
+                ByteCube moved = new ByteCube();
+                model.DoMove(cc, random.nextInt(18), moved);
+                cc = moved;
+            }
+            cubes[i] = cc;
+        }
+        for(int round = 0; round < 5; round++){
+            long start = System.nanoTime();
+            long check = 0;
+            for(ByteCube c : cubes){
+                check += model.CanonicalKey(c).corners;
+            }
+            System.out.println("Round " + round + ": " + String.format("%.2f", (double)(System.nanoTime() - start) / count)
+                    + " ns/key (" + check + ")");
+        }
+        ByteCube temp = new ByteCube();
+        ByteCube conj = new ByteCube();
+        ByteCube inv = new ByteCube();
+        for(int i = 0; i < 1000; i++){
+            CubeKey key = model.CanonicalKey(cubes[i]);
+            model.CanonicalCube(cubes[i], key, conj);
+            same &= RawKey(conj).equals(key);
+            int k = random.nextInt(48);
+            model.SthenSinv(cubes[i], k, temp, conj);
+            same &= model.CanonicalKey(conj).equals(key);
+            ByteCube.Invert(conj, inv);
+            same &= model.CanonicalKey(inv).equals(key);
+        }
+        System.out.println(same ? "All keys agree" : "The keys differ!");
+    }
+
+    /**
+     * @return - a key of the cube as it is, without any symmetry
+     */
+    private static CubeKey RawKey(ByteCube c){
+        return new CubeKey((c.CornPermCoord() * 2187) + c.CornOriCoord(),
+                ((long)c.EdgePermCoord() * 2048) + c.EdgeOriCoord(), 0, false);
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.util.Random;
+import rubiksolver.*;
+import rubiksolver.RubikModel2.*;
+import rubiksolverdef.*;
+
+/**
+ * This microbenchmark measures the coordinate calculators. The old way is
+ * kept here as it was: Math.pow for the orientations, factorials worked out
+ * recursively for the UDSlice, and a count of the bigger elements before
+ * each one for the permutations. The new way, in RubikModel2 and ByteCube,
+ * uses precomputed factorials and binomials and counts the bigger elements
+ * with a bitmask. Every coordinate is checked to come out the same all
+ * three ways, and every decoder in ByteCube is checked against the one in
+ * CubieCube for every coordinate value.
+ *
+ * Usage: java rubiksolver.bench.CoordBenchmark [cubes]
+ */
+public class CoordBenchmark {
+
+    public static void main(String[] args){
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        RubikModel2 model = new RubikModel2();
+        Random random = new Random(1);
+
+        //random cubes, each 20 random quarter turns from the one before
+        CubieCube[] cubes = new CubieCube[count];
+        ByteCube[] bytes = new ByteCube[count];
+        CubieCube cc = new CubieCube(true);
+        for(int i = 0; i < count; i++){
+            for(int j = 0; j < 20; j++){
+                cc = model.DoMove(cc, TurnAxis.values()[random.nextInt(6)]);
+            }
+            cubes[i] = cc;
+            bytes[i] = new ByteCube(cc);
+        }
+
+        //mirrored cubes take the other branch of CornOriCoord
+        boolean same = true;
+        for(int i = 0; i < 1000; i++){
+            CubieCube mirror = model.DoSym(cubes[i], 1, false);
+            same &= OldCornOriCoord(model, mirror.c) == model.CornOriCoord(mirror.c);
+        }
+
+        for(int round = 0; round < 5; round++){
+            long t1 = System.nanoTime();
+            long check1 = oldWay(model, cubes);
+            long t2 = System.nanoTime();
+            long check2 = newWay(model, cubes);
+            long t3 = System.nanoTime();
+            long check3 = byteWay(bytes);
+            long t4 = System.nanoTime();
+            System.out.println("Round " + round + ":");
+            System.out.println("  old RubikModel2 " + String.format("%.2f", (double)(t2 - t1) / count) + " ns/cube");
+            System.out.println("  new RubikModel2 " + String.format("%.2f", (double)(t3 - t2) / count) + " ns/cube");
+            System.out.println("  ByteCube        " + String.format("%.2f", (double)(t4 - t3) / count) + " ns/cube");
+            same &= check1 == check2 && check2 == check3;
+        }
+        for(int i = 0; i < count; i++){
+            same &= coords(model, cubes[i]).equals(coords(bytes[i]));
+        }
+
+        //the decoders, over every value of each coordinate
+        long start = System.nanoTime();
+        for(int i = 0; i < 40320; i++){
+            CubieCube c = new CubieCube(true);
+            ByteCube b = new ByteCube();
+            c.InvCornCoord(i);
+            b.InvCornCoord(i);
+            same &= b.CornPermCoord() == i && sameCube(c, b);
+            c = new CubieCube(true);
+            b = new ByteCube();
+            c.InvEdgeCoord(i);
+            b.InvEdgeCoord(i);
+            same &= b.EdgePermCoord() == i && sameCube(c, b);
+        }
+        for(int i = 0; i < 495; i++){
+            CubieCube c = new CubieCube(true);
+            ByteCube b = new ByteCube();
+            c.InvCoord(i);
+            b.InvCoord(i);
+            same &= b.UDSliceCoord() == i && sameCube(c, b);
+        }
+        for(int i = 0; i < 24; i++){
+            CubieCube c = new CubieCube(true);
+            ByteCube b = new ByteCube();
+            c.InvP2UDSliceCoord(i);
+            b.InvP2UDSliceCoord(i);
+            same &= sameCube(c, b);
+        }
+        for(int i = 0; i < 2187; i++){
+            CubieCube c = new CubieCube(true);
+            c.InvCoord(i, i % 2048);
+            ByteCube b = new ByteCube();
+            b.InvCoord(i, i % 2048);
+            same &= b.CornOriCoord() == i && b.EdgeOriCoord() == i % 2048 && sameCube(c, b);
+        }
+        System.out.println("Decoders checked in " + ((System.nanoTime() - start) / 1000000L) + "ms");
+        System.out.println(same ? "All coordinates agree" : "The coordinates differ!");
+    }
+
+    /**
+     * Works out every coordinate of each cube the old way
+     *
+     * @return - the sum of the coordinates
+     */
+    private static long oldWay(RubikModel2 model, CubieCube[] cubes){
+        long sum = 0;
+        for(CubieCube c : cubes){
+            sum += OldCornOriCoord(model, c.c) + OldEdgeOriCoord(c.e) + OldUDSliceCoord(c)
+                    + OldPermCoord(c.c) + OldEdgePermCoord(c.e, Edge.values().length - 1)
+                    + OldEdgePermCoord(c.e, Edge.DB.ordinal());
+        }
+        return sum;
+    }
+
+    /**
+     * Works out every coordinate of each cube with RubikModel2
+     *
+     * @return - the sum of the coordinates
+     */
+    private static long newWay(RubikModel2 model, CubieCube[] cubes){
+        long sum = 0;
+        for(CubieCube c : cubes){
+            sum += model.CornOriCoord(c.c) + model.EdgeOriCoord(c.e) + model.UDSliceCoord(c)
+                    + model.CornPermCoord(c.c) + model.EdgePermCoord(c.e) + model.Phase2EdgePermCoord(c);
+        }
+        return sum;
+    }
+
+    /**
+     * Works out every coordinate of each cube with ByteCube
+     *
+     * @return - the sum of the coordinates
+     */
+    private static long byteWay(ByteCube[] cubes){
+        long sum = 0;
+        for(ByteCube c : cubes){
+            sum += c.CornOriCoord() + c.EdgeOriCoord() + c.UDSliceCoord()
+                    + c.CornPermCoord() + c.EdgePermCoord() + c.Phase2EdgePermCoord();
+        }
+        return sum;
+    }
+
+    /**
+     * @return - every coordinate of a cube, from RubikModel2
+     */
+    private static String coords(RubikModel2 model, CubieCube c){
+        return model.CornOriCoord(c.c) + " " + model.EdgeOriCoord(c.e) + " " + model.UDSliceCoord(c) + " "
+                + model.CornPermCoord(c.c) + " " + model.EdgePermCoord(c.e) + " " + model.Phase2EdgePermCoord(c)
+                + " " + model.UDSliceSortedCoord(c);
+    }
+
+    /**
+     * @return - every coordinate of a cube, from ByteCube
+     */
+    private static String coords(ByteCube c){
+        return c.CornOriCoord() + " " + c.EdgeOriCoord() + " " + c.UDSliceCoord() + " "
+                + c.CornPermCoord() + " " + c.EdgePermCoord() + " " + c.Phase2EdgePermCoord()
+                + " " + c.UDSliceSortedCoord();
+    }
+
+    /**
+     * @return - true if the two cubes have the same cubies, ignoring the alternate edge orientation
+     */
+    private static boolean sameCube(CubieCube c, ByteCube b){
+        ByteCube copy = new ByteCube(c);
+        return java.util.Arrays.equals(copy.cp, b.cp) && java.util.Arrays.equals(copy.co, b.co)
+                && java.util.Arrays.equals(copy.ep, b.ep) && java.util.Arrays.equals(copy.eo, b.eo);
+    }
+
+    /**
+     * The old RubikModel2.CornOriCoord
+     */
+    private static int OldCornOriCoord(RubikModel2 model, CornerCubie c){
+        int s = 0;
+        boolean invert = false;
+        for(Corner co: Corner.values()){
+            if(c.a[co.ordinal()].o >= 3){
+                invert = true;
+            }
+        }
+        if(invert){
+            CornerCubie temp = model.CornMult(model.Symmetries[1].c, c);
+            temp = model.CornMult(temp, model.SymmetriesInv[1].c);
+            for(Corner co: Corner.values()){
+                s = s + ((temp.a[co.ordinal()].o % 3) * (int)Math.pow(3,(6 - co.ordinal())));
+            }
+        }else{
+            for(Corner co: Corner.values()){
+                s = s + ((c.a[co.ordinal()].o % 3) * (int)Math.pow(3,(6 - co.ordinal())));
+            }
+        }
+        return s;
+    }
+
+    /**
+     * The old RubikModel2.EdgeOriCoord
+     */
+    private static int OldEdgeOriCoord(EdgeCubie e){
+        int s = 0;
+        for(Edge ed: Edge.values()){
+            s = s + ((e.a[ed.ordinal()].o) * (int)Math.pow(2, (10 - ed.ordinal())));
+        }
+        return s;
+    }
+
+    /**
+     * The old RubikModel2.UDSliceCoord
+     */
+    private static int OldUDSliceCoord(CubieCube cc){
+        int s = 0;
+        boolean[] occupied = {false, false, false, false, false, false, false, false, false, false, false, false};
+        for(Edge ed : Edge.values()){
+            if(cc.e.a[ed.ordinal()].e.ordinal() >= Edge.FR.ordinal()) occupied[ed.ordinal()] = true;
+        }
+        int k = 3, n = 11;
+        while (k >=0){
+            if(occupied[n]) k--;
+            else s = s + (int)(factorial(n) / (factorial(k) * factorial(n - k)));
+            n--;
+        }
+        return s;
+    }
+
+    /**
+     * The old RubikModel2.factorial
+     */
+    private static int factorial(int n){
+        if(n <= 1){
+            return 1;
+        }else{
+            return n * factorial(n - 1);
+        }
+    }
+
+    /**
+     * The old RubikModel2.CornPermCoord
+     */
+    private static int OldPermCoord(CornerCubie corn){
+        int x = 0;
+        for(int i = Corner.values().length - 1; i > 0; i--){
+            int s = 0;
+            for(int j = i - 1; j >= 0; j--){
+                if(corn.a[j].c.ordinal() > corn.a[i].c.ordinal()) s++;
+            }
+            x = (x + s) * i;
+        }
+        return x;
+    }
+
+    /**
+     * The old RubikModel2.EdgePermCoord, and Phase2EdgePermCoord when last is DB
+     */
+    private static int OldEdgePermCoord(EdgeCubie ed, int last){
+        int x = 0;
+        for(int i = last; i > 0; i--){
+            int s = 0;
+            for(int j = i - 1; j >= 0; j--){
+                if(ed.a[j].e.ordinal() > ed.a[i].e.ordinal()) s++;
+            }
+            x = (x + s) * i;
+        }
+        return x;
+    }
+}
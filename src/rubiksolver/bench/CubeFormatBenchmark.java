@@ -0,0 +1,158 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import rubiksolver.*;
+import rubiksolverdef.*;
+
+/**
+ * This microbenchmark measures how fast CubeFormat reads and writes facelet
+ * strings and move sequences, and checks it. Single moves are checked to
+ * give the published facelet strings, random cubes to come back the same
+ * after being written and read again, and broken facelet strings to give
+ * the right error codes.
+ *
+ * Usage: java rubiksolver.bench.CubeFormatBenchmark [cubes]
+ */
+public class CubeFormatBenchmark {
+    private static final String SOLVED = "UUUUUUUUURRRRRRRRRFFFFFFFFFDDDDDDDDDLLLLLLLLLBBBBBBBBB";
+
+    public static void main(String[] args){
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        RubikModel2 model = new RubikModel2();
+        boolean same = true;
+
+        //single moves against the facelet strings other solvers give
+        same &= Check(model, "", SOLVED);
+        same &= Check(model, "U", "UUUUUUUUUBBBRRRRRRRRRFFFFFFDDDDDDDDDFFFLLLLLLLLLBBBBBB");
+        same &= Check(model, "R", "UUFUUFUUFRRRRRRRRRFFDFFDFFDDDBDDBDDBLLLLLLLLLUBBUBBUBB");
+        same &= Check(model, "F", "UUUUUULLLURRURRURRFFFFFFFFFRRRDDDDDDLLDLLDLLDBBBBBBBBB");
+        same &= Check(model, "Rx1 Ux2 Fx3", FaceletsOf(model, "R U2 F'"));
+        same &= Check(model, "RU2F'", FaceletsOf(model, "R U2 F'"));
+
+        //the error codes
+        ByteCube cc = new ByteCube();
+        same &= CubeFormat.ParseFacelets(SOLVED.substring(1), cc) == CubeFormat.BAD_LENGTH;
+        same &= CubeFormat.ParseFacelets(SOLVED.replace('B', 'X'), cc) == CubeFormat.OK;
+        same &= CubeFormat.ParseFacelets(SOLVED.replace("RRRRRRRRR", "RRRRRRRRU"), cc) == CubeFormat.BAD_COUNT;
+        same &= CubeFormat.ParseFacelets("X" + SOLVED.substring(1), cc) == CubeFormat.BAD_COLOR;
+        same &= CubeFormat.ParseFacelets(SOLVED.replace("FFFFFFFFF", "FFFFRFFFF"), cc) == CubeFormat.BAD_CENTERS;
+        //twist the URF corner, flip the UR edge, swap the UR and UF edges, and turn the URF corner inside out
+        same &= CubeFormat.ParseFacelets(Cycle(SOLVED, 8, 9, 20), cc) == CubeFormat.TWIST;
+        same &= CubeFormat.ParseFacelets(Swap(SOLVED, 5, 10), cc) == CubeFormat.FLIP;
+        same &= CubeFormat.ParseFacelets(Swap(SOLVED, 10, 19), cc) == CubeFormat.PARITY;
+        same &= CubeFormat.ParseFacelets(Swap(SOLVED, 8, 9), cc) == CubeFormat.BAD_CORNER;
+        same &= CubeFormat.ParseMoves("R U X", new int[10]) == CubeFormat.BAD_MOVE;
+        same &= CubeFormat.ParseMoves("R U F", new int[2]) == CubeFormat.BAD_MOVE;
+
+        //random cubes, each 20 random moves from solved
+        Random random = new Random(1);
+        ByteCube[] cubes = new ByteCube[count];
+        String[] scrambles = new String[count];
+        int[] moves = new int[20];
+        for(int i = 0; i < count; i++){
+            cc = new ByteCube();
+            for(int j = 0; j < 20; j++){
+                moves[j] = random.nextInt(18);
+                ByteCube moved = new ByteCube();
+                model.DoMove(cc, moves[j], moved);
+                cc = moved;
+            }
+            cubes[i] = cc;
+            scrambles[i] = CubeFormat.ToMoves(moves, 20);
+        }
+        byte[] buf = new byte[count * 55];
+        ByteCube back = new ByteCube();
+        for(int round = 0; round < 10; round++){
+            long t1 = System.nanoTime();
+            for(int i = 0; i < count; i++){
+                CubeFormat.WriteFacelets(cubes[i], buf, i * 55);
+                buf[(i * 55) + 54] = '\n';
+            }
+            long t2 = System.nanoTime();
+            int errors = 0;
+            for(int i = 0; i < count; i++){
+                errors += CubeFormat.ParseFacelets(buf, i * 55, back);
+            }
+            long t3 = System.nanoTime();
+            int[] parsed = new int[64];
+            for(int i = 0; i < count; i++){
+                errors += Math.min(0, CubeFormat.ParseMoves(scrambles[i], parsed));
+            }
+            long t4 = System.nanoTime();
+            System.out.println("Round " + round + ":");
+            System.out.println("  write facelets " + String.format("%.1f", (double)(t2 - t1) / count) + " ns/cube");
+            System.out.println("  read facelets  " + String.format("%.1f", (double)(t3 - t2) / count) + " ns/cube");
+            System.out.println("  read moves     " + String.format("%.1f", (double)(t4 - t3) / count) + " ns/cube");
+            same &= errors == 0;
+        }
+        for(int i = 0; i < count; i++){
+            same &= CubeFormat.ParseFacelets(CubeFormat.ToFacelets(cubes[i]), back) == CubeFormat.OK && SameCube(cubes[i], back);
+        }
+        for(int i = 0; i < 1000; i++){
+            same &= CubeFormat.ParseScramble(model, scrambles[i], back) == CubeFormat.OK && SameCube(cubes[i], back);
+        }
+        System.out.println(same ? "All cubes agree" : "The cubes differ!");
+    }
+
+    /**
+     * @return - true if the moves give the facelets, and the facelets read back as the same cube
+     */
+    private static boolean Check(RubikModel2 model, String moves, String facelets){
+        ByteCube cc = new ByteCube();
+        ByteCube back = new ByteCube();
+        boolean ok = CubeFormat.ParseScramble(model, moves, cc) == CubeFormat.OK
+                && CubeFormat.ToFacelets(cc).equals(facelets)
+                && CubeFormat.ParseFacelets(facelets, back) == CubeFormat.OK && SameCube(cc, back);
+        if(!ok){
+            System.out.println("Failed: " + moves + " gives " + CubeFormat.ToFacelets(cc) + " not " + facelets);
+        }
+        return ok;
+    }
+
+    /**
+     * @return - the facelets of a scramble
+     */
+    private static String FaceletsOf(RubikModel2 model, String moves){
+        ByteCube cc = new ByteCube();
+        CubeFormat.ParseScramble(model, moves, cc);
+        return CubeFormat.ToFacelets(cc);
+    }
+
+    /**
+     * @return - the facelets with two of them swapped
+     */
+    private static String Swap(String s, int i, int j){
+        char[] a = s.toCharArray();
+        char temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+        return new String(a);
+    }
+
+    /**
+     * @return - the facelets with three of them cycled
+     */
+    private static String Cycle(String s, int i, int j, int k){
+        return Swap(Swap(s, i, j), j, k);
+    }
+
+    /**
+     * @return - true if the two cubes have the same cubies
+     */
+    private static boolean SameCube(ByteCube a, ByteCube b){
+        return Arrays.equals(a.cp, b.cp) && Arrays.equals(a.co, b.co)
+                && Arrays.equals(a.ep, b.ep) && Arrays.equals(a.eo, b.eo);
+    }
+}
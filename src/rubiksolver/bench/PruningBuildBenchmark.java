@@ -0,0 +1,70 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import rubiksolver.*;
+
+/**
+ * This benchmark builds the pruning tables with different numbers of
+ * threads and prints how long each build took and the speedup over the
+ * first one. Only the Phase 2 table is built unless -phase1 is given,
+ * since the Phase 1 table takes several minutes on one thread.
+ *
+ * Usage: java rubiksolver.bench.PruningBuildBenchmark [-tables dir] [-packed] [-phase1] [threads ...]
+ */
+public class PruningBuildBenchmark {
+
+    public static void main(String[] args){
+        String dir = ".";
+        boolean packed = false;
+        boolean phase1 = false;
+        ArrayList<Integer> threads = new ArrayList<Integer>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-tables")){
+                dir = args[++i];
+            }else if(args[i].equals("-packed")){
+                packed = true;
+            }else if(args[i].equals("-phase1")){
+                phase1 = true;
+            }else{
+                threads.add(Integer.parseInt(args[i]));
+            }
+        }
+        if(threads.isEmpty()){
+            for(int t = 1; t <= Runtime.getRuntime().availableProcessors(); t = t * 2){
+                threads.add(t);
+            }
+        }
+        SolverEngine engine = SolverEngine.load(new File(dir), packed);
+        System.out.println("Processors available: " + Runtime.getRuntime().availableProcessors());
+
+        long[] times = new long[threads.size()];
+        for(int i = 0; i < threads.size(); i++){
+            ForkJoinPool pool = new ForkJoinPool(threads.get(i));
+            long start = System.nanoTime();
+            if(phase1){
+                PruningTables.BuildPhase1(engine.flip, engine.table, packed, pool);
+            }
+            PruningTables.BuildPhase2(engine.perm, engine.table, packed, pool);
+            times[i] = System.nanoTime() - start;
+            pool.shutdown();
+        }
+        System.out.println();
+        System.out.println("Threads  Time (ms)  Speedup");
+        for(int i = 0; i < threads.size(); i++){
+            System.out.println(String.format("%7d  %9d  %7.2f", threads.get(i), times[i] / 1000000L, (double)times[0] / times[i]));
+        }
+    }
+}
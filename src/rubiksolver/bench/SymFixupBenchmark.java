@@ -0,0 +1,181 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.io.File;
+import java.util.Random;
+import rubiksolver.*;
+
+/**
+ * This microbenchmark measures what it costs to find the symmetry index of a
+ * successor in the search, the old way and the new way. The old way combines
+ * the symmetries and then scans all 16 symmetries of the class whenever
+ * that guess is wrong. The new way reads the answer from
+ * TwistMoveTable.FlipUDSliceRawSym or P2CornPermRawSym.
+ *
+ * Usage: java rubiksolver.bench.SymFixupBenchmark [table directory] [successors]
+ */
+public class SymFixupBenchmark {
+    //the moves allowed in phase 2
+    private static final int[] PHASE2_MOVES = RubikSolver2.Phase2Moves();
+
+    public static void main(String[] args){
+        String dir = (args.length > 0) ? args[0] : ".";
+        int count = (args.length > 1) ? Integer.parseInt(args[1]) : 2000000;
+        SolverEngine engine = SolverEngine.load(new File(dir));
+        TwistMoveTable table = engine.table;
+        RubikModel2 model = engine.model;
+        Random random = new Random(1);
+
+        //walk randomly through phase 1, recording each cube and the move made from it
+        int[] flipUD = new int[count];
+        int[] edge = new int[count];
+        int[] ud = new int[count];
+        int[] move = new int[count];
+        int f = 0, e = 0, u = 0;
+        for(int i = 0; i < count; i++){
+            int m = random.nextInt(18);
+            flipUD[i] = f;
+            edge[i] = e;
+            ud[i] = u;
+            move[i] = m;
+            int newFlipRaw = table.FlipUDSliceTwistMove[((int)(f / 16) * TwistMoveTable.MOVES) + model.SymMove[f % 16][m]];
+            e = table.EdgeOriTwistMove[(e * TwistMoveTable.MOVES) + m];
+            u = table.UDSliceTwistMove[(u * TwistMoveTable.MOVES) + m];
+            f = ((int)(newFlipRaw / 16) * 16) + table.FlipUDSliceRawSym[(u * 2048) + e];
+        }
+
+        //and the same through phase 2
+        int[] corn = new int[count];
+        int[] raw = new int[count];
+        int[] move2 = new int[count];
+        int c = 0, r = 0;
+        for(int i = 0; i < count; i++){
+            int m = PHASE2_MOVES[random.nextInt(PHASE2_MOVES.length)];
+            corn[i] = c;
+            raw[i] = r;
+            move2[i] = m;
+            int newCornPermRaw = table.P2CornPermTwistMove[((int)(c / 16) * TwistMoveTable.MOVES) + model.SymMove[c % 16][m]];
+            r = table.P2CornPermRawTwistMove[(r * TwistMoveTable.MOVES) + m];
+            c = ((int)(newCornPermRaw / 16) * 16) + table.P2CornPermRawSym[r];
+        }
+
+        for(int round = 0; round < 5; round++){
+            long t1 = System.nanoTime();
+            long check1 = phase1Scan(table, model, flipUD, edge, ud, move);
+            long t2 = System.nanoTime();
+            long check2 = phase1Table(table, model, flipUD, edge, ud, move);
+            long t3 = System.nanoTime();
+            long check3 = phase2Scan(table, model, corn, raw, move2);
+            long t4 = System.nanoTime();
+            long check4 = phase2Table(table, model, corn, raw, move2);
+            long t5 = System.nanoTime();
+            System.out.println("Round " + round + ":");
+            System.out.println("  FlipUDSlice scan  " + String.format("%.2f", (double)(t2 - t1) / count) + " ns/successor");
+            System.out.println("  FlipUDSlice table " + String.format("%.2f", (double)(t3 - t2) / count) + " ns/successor");
+            System.out.println("  CornerPerm scan   " + String.format("%.2f", (double)(t4 - t3) / count) + " ns/successor");
+            System.out.println("  CornerPerm table  " + String.format("%.2f", (double)(t5 - t4) / count) + " ns/successor");
+            if(check1 != check2 || check3 != check4){
+                System.out.println("  The two ways gave different symmetries!");
+            }
+        }
+    }
+
+    /**
+     * Finds each phase 1 successor's symmetry the old way
+     *
+     * @return - a checksum of the symmetries found
+     */
+    private static long phase1Scan(TwistMoveTable table, RubikModel2 model, int[] flipUD, int[] edge, int[] ud, int[] move){
+        long sum = 0;
+        for(int i = 0; i < move.length; i++){
+            int oldSym = flipUD[i] % 16;
+            int m = move[i];
+            int newFlipRaw = table.FlipUDSliceTwistMove[((int)(flipUD[i] / 16) * TwistMoveTable.MOVES) + model.SymMove[oldSym][m]];
+            int UDSliceCoord = (int)(newFlipRaw / 16);
+            int newUDSlice = (table.UDSliceTwistMove[(ud[i] * TwistMoveTable.MOVES) + m] * 2048) + table.EdgeOriTwistMove[(edge[i] * TwistMoveTable.MOVES) + m];
+            int newSym = model.SymComb[oldSym][newFlipRaw % 16];
+            if(table.FlipUDSliceSymInv[(UDSliceCoord * TwistMoveTable.SYMS) + newSym] != newUDSlice){
+                for(int j = 0; j < 16; j++){
+                    if(table.FlipUDSliceSymInv[(UDSliceCoord * TwistMoveTable.SYMS) + j] == newUDSlice){
+                        newSym = j;
+                        break;
+                    }
+                }
+            }
+            sum += table.FlipUDSliceSymInv[(UDSliceCoord * TwistMoveTable.SYMS) + newSym];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds each phase 1 successor's symmetry with the lookup table
+     *
+     * @return - a checksum of the symmetries found
+     */
+    private static long phase1Table(TwistMoveTable table, RubikModel2 model, int[] flipUD, int[] edge, int[] ud, int[] move){
+        long sum = 0;
+        for(int i = 0; i < move.length; i++){
+            int m = move[i];
+            int newFlipRaw = table.FlipUDSliceTwistMove[((int)(flipUD[i] / 16) * TwistMoveTable.MOVES) + model.SymMove[flipUD[i] % 16][m]];
+            int UDSliceCoord = (int)(newFlipRaw / 16);
+            int newUDSlice = (table.UDSliceTwistMove[(ud[i] * TwistMoveTable.MOVES) + m] * 2048) + table.EdgeOriTwistMove[(edge[i] * TwistMoveTable.MOVES) + m];
+            int newSym = table.FlipUDSliceRawSym[newUDSlice];
+            sum += table.FlipUDSliceSymInv[(UDSliceCoord * TwistMoveTable.SYMS) + newSym];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds each phase 2 successor's symmetry the old way
+     *
+     * @return - a checksum of the symmetries found
+     */
+    private static long phase2Scan(TwistMoveTable table, RubikModel2 model, int[] corn, int[] raw, int[] move){
+        long sum = 0;
+        for(int i = 0; i < move.length; i++){
+            int oldSym = corn[i] % 16;
+            int m = move[i];
+            int newCornPermRaw = table.P2CornPermTwistMove[((int)(corn[i] / 16) * TwistMoveTable.MOVES) + model.SymMove[oldSym][m]];
+            int newCornPerm = (int)(newCornPermRaw / 16);
+            int newCornPermNoSym = table.P2CornPermRawTwistMove[(raw[i] * TwistMoveTable.MOVES) + m];
+            int newSym = model.SymComb[oldSym][newCornPermRaw % 16];
+            if(table.P2CornPermSymInv[(newCornPerm * TwistMoveTable.SYMS) + newSym] != newCornPermNoSym){
+                for(int j = 0; j < 16; j++){
+                    if(table.P2CornPermSymInv[(newCornPerm * TwistMoveTable.SYMS) + j] == newCornPermNoSym){
+                        newSym = j;
+                        break;
+                    }
+                }
+            }
+            sum += table.P2CornPermSymInv[(newCornPerm * TwistMoveTable.SYMS) + newSym];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds each phase 2 successor's symmetry with the lookup table
+     *
+     * @return - a checksum of the symmetries found
+     */
+    private static long phase2Table(TwistMoveTable table, RubikModel2 model, int[] corn, int[] raw, int[] move){
+        long sum = 0;
+        for(int i = 0; i < move.length; i++){
+            int m = move[i];
+            int newCornPermRaw = table.P2CornPermTwistMove[((int)(corn[i] / 16) * TwistMoveTable.MOVES) + model.SymMove[corn[i] % 16][m]];
+            int newCornPerm = (int)(newCornPermRaw / 16);
+            int newSym = table.P2CornPermRawSym[table.P2CornPermRawTwistMove[(raw[i] * TwistMoveTable.MOVES) + m]];
+            sum += table.P2CornPermSymInv[(newCornPerm * TwistMoveTable.SYMS) + newSym];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolver.bench;
+
+import java.util.Random;
+import rubiksolver.*;
+import rubiksolver.RubikModel2.*;
+import rubiksolverdef.*;
+
+/**
+ * This microbenchmark measures the reduce functions of RubikModel2. The old
+ * way is kept here as it was: each of the 16 symmetries is applied to the
+ * cube with SthenSinv and the coordinate of the result worked out. The new
+ * way looks the conjugated coordinates up in the tables RubikModel2 builds.
+ * Both ways are checked to find the same minimum and the same symmetry.
+ *
+ * Usage: java rubiksolver.bench.SymReduceBenchmark [cubes]
+ */
+public class SymReduceBenchmark {
+
+    public static void main(String[] args){
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+        RubikModel2 model = new RubikModel2();
+        Random random = new Random(1);
+
+        //random cubes, each 20 random quarter turns from the one before
+        CubieCube[] cubes = new CubieCube[count];
+        CubieCube cc = new CubieCube(true);
+        for(int i = 0; i < count; i++){
+            for(int j = 0; j < 20; j++){
+                cc = model.DoMove(cc, TurnAxis.values()[random.nextInt(6)]);
+            }
+            cubes[i] = cc;
+        }
+
+        boolean same = true;
+        for(int round = 0; round < 5; round++){
+            long t1 = System.nanoTime();
+            long check1 = oldWay(model, cubes);
+            long t2 = System.nanoTime();
+            long check2 = newWay(model, cubes);
+            long t3 = System.nanoTime();
+            System.out.println("Round " + round + ":");
+            System.out.println("  SthenSinv    " + String.format("%.2f", (double)(t2 - t1) / count) + " ns/cube");
+            System.out.println("  conjugation  " + String.format("%.2f", (double)(t3 - t2) / count) + " ns/cube");
+            same &= check1 == check2;
+        }
+        System.out.println(same ? "The reduce functions agree" : "The reduce functions differ!");
+    }
+
+    /**
+     * Reduces each cube the old way
+     *
+     * @return - the sum of the minimum coordinates and symmetries
+     */
+    private static long oldWay(RubikModel2 model, CubieCube[] cubes){
+        long sum = 0;
+        for(CubieCube c : cubes){
+            int flipMin = Integer.MAX_VALUE;
+            int flipIdx = 0;
+            int cornMin = Integer.MAX_VALUE;
+            int cornIdx = 0;
+            for(int k = 0; k < 16; k++){
+                CubieCube tempC = model.SthenSinv(c, k);
+                int temp = (model.UDSliceCoord(tempC) * 2048) + model.EdgeOriCoord(tempC.e);
+                if(temp < flipMin){
+                    flipMin = temp;
+                    flipIdx = k;
+                }
+                temp = model.CornPermCoord(tempC.c);
+                if(temp < cornMin){
+                    cornMin = temp;
+                    cornIdx = k;
+                }
+            }
+            sum += flipMin + flipIdx + cornMin + cornIdx;
+        }
+        return sum;
+    }
+
+    /**
+     * Reduces each cube with the reduce functions of RubikModel2
+     *
+     * @return - the sum of the minimum coordinates and symmetries
+     */
+    private static long newWay(RubikModel2 model, CubieCube[] cubes){
+        long sum = 0;
+        for(CubieCube c : cubes){
+            sum += model.UDSliceRawReduce(c) + model.SymReduce(c)
+                    + model.CornPermRawReduce(c) + model.CornSymReduce(c);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,384 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolverdef;
+
+/**
+ * This represents a Rubik's Cube as four byte arrays, the same way a
+ * CubieCube does but without an object for every cubie. Multiplying two
+ * of them writes into a third that the caller owns, so moving a cube
+ * around while building the tables makes no garbage at all.
+ *
+ * Corner orientations above 2 are the mirrored ones, as in CornerCubie.
+ * The alternate edge orientation of OrientedEdge is not kept, since no
+ * coordinate uses it.
+ * @author russfeld
+ */
+import java.io.Serializable;
+import rubiksolver.RubikModel2;
+import rubiksolver.RubikModel2.*;
+
+public class ByteCube implements Serializable{
+    public byte[] cp; //the corner in each corner position
+    public byte[] co; //the orientation of the corner in each position
+    public byte[] ep; //the edge in each edge position
+    public byte[] eo; //the orientation of the edge in each position
+
+    //the inverse of each corner orientation under RubikModel2.OriMult
+    private static final byte[] ORI_INV = {0, 2, 1, 3, 4, 5};
+
+    /**
+     * This creates a solved cube
+     */
+    public ByteCube(){
+        cp = new byte[8];
+        co = new byte[8];
+        ep = new byte[12];
+        eo = new byte[12];
+        for(int i = 0; i < 8; i++){
+            cp[i] = (byte)i;
+        }
+        for(int i = 0; i < 12; i++){
+            ep[i] = (byte)i;
+        }
+    }
+
+    /**
+     * This creates a copy of a CubieCube
+     *
+     * @param cc - the cube to copy
+     */
+    public ByteCube(CubieCube cc){
+        this();
+        set(cc);
+    }
+
+    /**
+     * This makes this cube a copy of another
+     *
+     * @param b - the cube to copy
+     */
+    public void set(ByteCube b){
+        System.arraycopy(b.cp, 0, cp, 0, 8);
+        System.arraycopy(b.co, 0, co, 0, 8);
+        System.arraycopy(b.ep, 0, ep, 0, 12);
+        System.arraycopy(b.eo, 0, eo, 0, 12);
+    }
+
+    /**
+     * This makes this cube a copy of a CubieCube
+     *
+     * @param cc - the cube to copy
+     */
+    public void set(CubieCube cc){
+        for(int i = 0; i < 8; i++){
+            cp[i] = (byte)cc.c.a[i].c.ordinal();
+            co[i] = (byte)cc.c.a[i].o;
+        }
+        for(int i = 0; i < 12; i++){
+            ep[i] = (byte)cc.e.a[i].e.ordinal();
+            eo[i] = (byte)cc.e.a[i].o;
+        }
+    }
+
+    /**
+     * This creates a CubieCube that is the same as this cube
+     *
+     * @return - the new CubieCube
+     */
+    public CubieCube toCubieCube(){
+        CubieCube cc = new CubieCube();
+        for(int i = 0; i < 8; i++){
+            cc.c.a[i] = new OrientedCorner(Corner.values()[cp[i]], co[i]);
+        }
+        for(int i = 0; i < 12; i++){
+            cc.e.a[i] = new OrientedEdge(Edge.values()[ep[i]], eo[i], 0);
+        }
+        return cc;
+    }
+
+    /**
+     * This multiplies two cubes, the same way CornMult and EdgeMult do,
+     * writing the product into a third
+     *
+     * @param a - the first cube
+     * @param b - the second cube, which is a move or symmetry to apply to a
+     * @param prod - where the product goes, which must not be a or b
+     */
+    public static void Multiply(ByteCube a, ByteCube b, ByteCube prod){
+        for(int i = 0; i < 8; i++){
+            int from = b.cp[i];
+            prod.cp[i] = a.cp[from];
+            prod.co[i] = (byte)RubikModel2.OriMult(a.co[from], b.co[i]);
+        }
+        for(int i = 0; i < 12; i++){
+            int from = b.ep[i];
+            prod.ep[i] = a.ep[from];
+            prod.eo[i] = (byte)(a.eo[from] ^ b.eo[i]);
+        }
+    }
+
+    /**
+     * This works out the inverse of a cube, so that multiplying the two
+     * gives a solved cube
+     *
+     * @param a - the cube
+     * @param inv - where the inverse goes, which must not be a
+     */
+    public static void Invert(ByteCube a, ByteCube inv){
+        for(int i = 0; i < 8; i++){
+            inv.cp[a.cp[i]] = (byte)i;
+            inv.co[a.cp[i]] = ORI_INV[a.co[i]];
+        }
+        for(int i = 0; i < 12; i++){
+            inv.ep[a.ep[i]] = (byte)i;
+            inv.eo[a.ep[i]] = a.eo[i];
+        }
+    }
+
+    /**
+     * This function calculates the Corner Orientation Coordinate
+     *
+     * @return - the Corner Orientation Coordinate
+     */
+    public int CornOriCoord(){
+        int s = 0;
+        for(int i = 0; i < 7; i++){
+            s = (s * 3) + (co[i] % 3);
+        }
+        return s;
+    }
+
+    /**
+     * This function calculates the Edge Orientation Coordinate
+     *
+     * @return - the Edge Orientation Coordinate
+     */
+    public int EdgeOriCoord(){
+        int s = 0;
+        for(int i = 0; i < 11; i++){
+            s = (s * 2) + eo[i];
+        }
+        return s;
+    }
+
+    /**
+     * This function calculates the UDSlice Coordinate
+     *
+     * @return - the UDSlice Coordinate
+     */
+    public int UDSliceCoord(){
+        int s = 0;
+        int k = 3;
+        for(int n = 11; k >= 0; n--){
+            if(ep[n] >= Edge.FR.ordinal()){
+                k--;
+            }else{
+                s = s + RubikModel2.BINOMIAL[n][k];
+            }
+        }
+        return s;
+    }
+
+    /**
+     * This function calculates the Corner Permutation Coordinate
+     *
+     * @return - the Corner Permutation Coordinate
+     */
+    public int CornPermCoord(){
+        return PermCoord(cp, 8);
+    }
+
+    /**
+     * This function calculates the Edge Permutation Coordinate
+     *
+     * @return - the Edge Permutation Coordinate
+     */
+    public int EdgePermCoord(){
+        return PermCoord(ep, 12);
+    }
+
+    /**
+     * This function calculates the Phase 2 Edge Permutation Coordinate,
+     * which only looks at the 8 edges outside the UDSlice
+     *
+     * @return - the Phase 2 Edge Permutation Coordinate
+     */
+    public int Phase2EdgePermCoord(){
+        return PermCoord(ep, Edge.DB.ordinal() + 1);
+    }
+
+    /**
+     * This function calculates a permutation coordinate the same way
+     * CornPermCoord and EdgePermCoord in RubikModel2 do: each element adds
+     * the number of elements before it that are bigger, times i!
+     *
+     * @param perm - the permutation
+     * @param count - the number of positions to count
+     * @return - the coordinate
+     */
+    private static int PermCoord(byte[] perm, int count){
+        int x = 0;
+        int seen = 0;
+        for(int i = 0; i < count; i++){
+            x += Integer.bitCount(seen >>> (perm[i] + 1)) * RubikModel2.FACTORIAL[i];
+            seen |= 1 << perm[i];
+        }
+        return x;
+    }
+
+    /**
+     * This function calculates the UDSlice Sorted Coordinate for Phase 2
+     *
+     * @return - the UDSlice Sorted Coordinate
+     */
+    public int UDSliceSortedCoord(){
+        //rank the slice edges in the order they are found
+        int x = 0;
+        int seen = 0;
+        int found = 0;
+        for(int i = 0; i < 12; i++){
+            if(ep[i] >= Edge.FR.ordinal()){
+                x += Integer.bitCount(seen >>> (ep[i] + 1)) * RubikModel2.FACTORIAL[found];
+                seen |= 1 << ep[i];
+                found++;
+            }
+        }
+        return (UDSliceCoord() * 24) + x;
+    }
+
+    /**
+     * This function sets the orientations to the given coordinates, like
+     * CubieCube.InvCoord, leaving the permutations alone
+     *
+     * @param CornOriCoord - the Corner Orientation Coordinate
+     * @param EdgeOriCoord - the Edge Orientation Coordinate
+     */
+    public void InvCoord(int CornOriCoord, int EdgeOriCoord){
+        int sum = 0;
+        for(int i = 6; i >= 0; i--){
+            co[i] = (byte)(CornOriCoord % 3);
+            sum += co[i];
+            CornOriCoord = (int)(CornOriCoord / 3);
+        }
+        co[7] = (byte)(2 - ((sum + 2) % 3));
+        sum = 0;
+        for(int i = 10; i >= 0; i--){
+            eo[i] = (byte)(EdgeOriCoord % 2);
+            sum += eo[i];
+            EdgeOriCoord = (int)(EdgeOriCoord / 2);
+        }
+        eo[11] = (byte)(1 - ((sum + 1) % 2));
+    }
+
+    /**
+     * This function sets the edges to the given UDSlice Coordinate, like
+     * CubieCube.InvCoord, with the other edges in order
+     *
+     * @param UDSliceCoord - the UDSlice Coordinate
+     */
+    public void InvCoord(int UDSliceCoord){
+        for(int i = 0; i < 12; i++){
+            ep[i] = (byte)i;
+            eo[i] = 0;
+        }
+        for(int i = 11; i >= 3; i--){
+            for(int j = i - 1; j >= 2; j--){
+                for(int k = j - 1; k >= 1; k--){
+                    for(int l = k - 1; l >= 0; l--){
+                        if(UDSliceCoord-- == 0){
+                            Swap(ep, 8, l);
+                            Swap(ep, 9, k);
+                            Swap(ep, 10, j);
+                            Swap(ep, 11, i);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This function sets the corners to the given Corner Permutation
+     * Coordinate, like CubieCube.InvCornCoord
+     *
+     * @param CornPermCoord - the Corner Permutation Coordinate
+     */
+    public void InvCornCoord(int CornPermCoord){
+        for(int i = 0; i < 8; i++){
+            cp[i] = (byte)i;
+            co[i] = 0;
+        }
+        InvPermCoord(cp, 7, CornPermCoord, 0);
+    }
+
+    /**
+     * This function sets the edges to the given Edge Permutation
+     * Coordinate, like CubieCube.InvEdgeCoord
+     *
+     * @param EdgePermCoord - the Edge Permutation Coordinate
+     */
+    public void InvEdgeCoord(int EdgePermCoord){
+        for(int i = 0; i < 12; i++){
+            ep[i] = (byte)i;
+            eo[i] = 0;
+        }
+        InvPermCoord(ep, 7, EdgePermCoord, 0);
+    }
+
+    /**
+     * This function sets the edges to the given Phase 2 UDSlice
+     * Coordinate, like CubieCube.InvP2UDSliceCoord
+     *
+     * @param P2UDSliceCoord - the Phase 2 UDSlice Coordinate
+     */
+    public void InvP2UDSliceCoord(int P2UDSliceCoord){
+        for(int i = 0; i < 12; i++){
+            ep[i] = (byte)i;
+            eo[i] = 0;
+        }
+        InvPermCoord(ep, 3, P2UDSliceCoord, 8);
+    }
+
+    /**
+     * This function permutes part of an array by a permutation coordinate
+     * of its first n + 1 elements, the same way CubieCube does
+     *
+     * @param perm - the array, in order
+     * @param n - the number of factorial digits in the coordinate
+     * @param coord - the coordinate
+     * @param base - the first position of the part
+     */
+    private static void InvPermCoord(byte[] perm, int n, int coord, int base){
+        for(int i = n; i > 0; i--){
+            //the factorial digit of position i
+            int digit = (int)(coord / RubikModel2.FACTORIAL[i]);
+            coord = coord - (RubikModel2.FACTORIAL[i] * digit);
+            for(int j = digit; j > 0; j--){
+                Swap(perm, base + i - j, base + i - j + 1);
+            }
+        }
+    }
+
+    /**
+     * Swaps two elements of an array
+     *
+     * @param a - the array
+     * @param i - the first element
+     * @param j - the second element
+     */
+    private static void Swap(byte[] a, int i, int j){
+        byte temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+}
@@ -14,49 +14,117 @@ package rubiksolverdef;
 /**
  * This class represents the tables needed for the Corner Permutation Sym Coordinate
  */
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Serializable;
 import rubiksolver.RubikModel2;
+import rubiksolver.TableFile;
 
 public class CornerPerm implements Serializable {
 
+        //changes whenever the way the classes are numbered changes, so saved tables are built again
+        public static final int VERSION = 1;
+
         private transient RubikModel2 model;
         public int[][] CornPermToRaw;
+        //for each raw Corner Permutation Coordinate, its Sym Coordinate (class * 16 + sym)
+        public int[] RawToCornPerm;
         public int size;
 
         /**
-         * This calculates the CornPermToRaw table
+         * This calculates the CornPermToRaw and RawToCornPerm tables
+         *
+         * The raw coordinates are visited in order, so the smallest one of
+         * each class, which is the one the class is stored as, is always
+         * reached before the rest of the class
          *
          * @param aModel - the RubikModel to use
          */
         public CornerPerm(RubikModel2 aModel){
-            System.out.print("Initializing CornerPerm: [" );
+            this(aModel, System.out);
+        }
+
+        /**
+         * This calculates the tables, printing the progress to the given stream
+         *
+         * @param aModel - the RubikModel to use
+         * @param log - where to print the progress
+         */
+        public CornerPerm(RubikModel2 aModel, PrintStream log){
+            log.print("Initializing CornerPerm: [" );
             model = aModel;
             CornPermToRaw = new int[2768][2];
             for(int x = 0; x < 2768; x++){
                 CornPermToRaw[x][0] = -1;
             }
+            RawToCornPerm = new int[40320];
             size = 0;
-            CubieCube cc = new CubieCube(true);
-            for(int i = 0; i < 40320; i++){ //UDSliceCoord
-                cc.InvCornCoord(i);
-                int min = model.CornPermRawReduce(cc);
-                int l;
-                for(l = 0; l < size; l++){
-                    if(CornPermToRaw[l][0] == min){
-                        CornPermToRaw[l][1]++;
-                        break;
+            for(int i = 0; i < 40320; i++){ //CornPermCoord
+                //the symmetry that gives the smallest coordinate, as CornSymReduce finds it
+                int tempIdx = 0;
+                int min = Integer.MAX_VALUE;
+                for(int k = 0; k < 16; k++){
+                    int coord = model.CornPermConj[(i * 48) + k];
+                    if(coord < min){
+                        min = coord;
+                        tempIdx = k;
                     }
                 }
-                if(CornPermToRaw[l][0] != min){
+                if(min == i){
                     CornPermToRaw[size][0] = min;
                     CornPermToRaw[size][1] = 0;
+                    RawToCornPerm[i] = (size * 16) + tempIdx;
                     size++;
+                }else{
+                    int l = (int)(RawToCornPerm[min] / 16);
+                    CornPermToRaw[l][1]++;
+                    RawToCornPerm[i] = (l * 16) + tempIdx;
                 }
                 if(i % 2000 == 0){
-                    System.out.print("=");
+                    log.print("=");
                 }
             }
-            System.out.println("] Done! Size of table: " + size);
+            log.println("] Done! Size of table: " + size);
+        }
+
+        /**
+         * This reads the tables from a table file written by addTo
+         *
+         * @param aModel - the RubikModel to use
+         * @param file - the table file
+         * @throws IOException - if the file does not hold the tables
+         */
+        public CornerPerm(RubikModel2 aModel, TableFile file) throws IOException{
+            model = aModel;
+            file.expect("CornerPerm.version", VERSION);
+            CornPermToRaw = file.intTable("CornPermToRaw");
+            RawToCornPerm = file.intArray("RawToCornPerm");
+            size = CornPermToRaw.length;
+            if(size != 2768 || RawToCornPerm.length != 40320){
+                throw new IOException("CornerPerm tables have the wrong size");
+            }
+        }
+
+        /**
+         * This adds the tables to a table file that is about to be written
+         *
+         * @param file - the table file
+         */
+        public void addTo(TableFile file){
+            file.put("CornerPerm.version", VERSION);
+            file.put("CornerPerm.classes", size);
+            file.add("CornPermToRaw", CornPermToRaw);
+            file.add("RawToCornPerm", RawToCornPerm);
+        }
+
+        /**
+         * This gets a checksum of the classes, which the tables built from
+         * this one record, so they can tell if the classes have changed since
+         *
+         * @return - the checksum of CornPermToRaw
+         */
+        public int checksum(){
+            return TableFile.checksum(CornPermToRaw);
         }
 
         /**
@@ -74,15 +142,6 @@ public class CornerPerm implements Serializable {
          * @return the Corner Permutation Sym Coordinate
          */
         public int CornPermCoord(CubieCube cc){
-            int tempIdx = model.CornSymReduce(cc);
-            CubieCube tempC = model.SthenSinv(cc, tempIdx);
-            int temp = model.CornPermCoord(tempC.c);
-            for(int i = 0; i < size; i++){
-                if(CornPermToRaw[i][0] == temp){
-                    return i * 16 + tempIdx;
-                }
-            }
-            System.out.println("Error: Could not find CornPermCoord: " + temp + " " + size + " " + model.CornPermCoord(cc.c));
-            return -1;
+            return RawToCornPerm[model.CornPermCoord(cc.c)];
         }
 }
@@ -0,0 +1,83 @@
+/**
+ * This program will solve a Rubik's Cube Puzzle using the
+ * two phase algorithm described by Herbert Kociemba at
+ * http://kociemba.org/cube.htm
+ *
+ * This is for private use only, not for release
+ *
+ * @author Russell Feldhausen
+ * @version 1.0 2008.12.04
+ */
+
+package rubiksolverdef;
+
+import java.io.Serializable;
+
+/**
+ * This is the key of a whole cube up to symmetry and inversion, as made by
+ * RubikModel2.CanonicalKey. All 96 cubes S * C * Sinv and S * Cinv * Sinv
+ * of a cube C have the same key, and no other cube does, so one entry per
+ * key is enough in any table of whole cubes.
+ *
+ * The key is the coordinates of the canonical cube, which is the one of the
+ * 96 with the smallest corners and then the smallest edges. The whole cube
+ * does not fit in one long, so the corners and edges are kept apart.
+ * @author russfeld
+ */
+public class CubeKey implements Serializable, Comparable<CubeKey>{
+    public int corners; //CornPermCoord * 2187 + CornOriCoord of the canonical cube
+    public long edges; //EdgePermCoord * 2048 + EdgeOriCoord of the canonical cube
+    public int sym; //the symmetry that takes the cube to the canonical cube
+    public boolean inverse; //true if the symmetry takes the inverse of the cube there
+
+    /**
+     * This creates a key
+     *
+     * @param corners - the corners of the canonical cube
+     * @param edges - the edges of the canonical cube
+     * @param sym - the symmetry index, 0 to 47
+     * @param inverse - true if the symmetry is applied to the inverse cube
+     */
+    public CubeKey(int corners, long edges, int sym, boolean inverse){
+        this.corners = corners;
+        this.edges = edges;
+        this.sym = sym;
+        this.inverse = inverse;
+    }
+
+    /**
+     * Keys are ordered by their corners and then their edges
+     *
+     * @param other - the key to compare to
+     * @return - less than, equal to or more than 0 as this key is smaller, the same or bigger
+     */
+    public int compareTo(CubeKey other){
+        if(corners != other.corners){
+            return (corners < other.corners) ? -1 : 1;
+        }
+        return Long.compare(edges, other.edges);
+    }
+
+    /**
+     * Two keys are equal if their canonical cubes are, however each cube got
+     * there
+     *
+     * @param o - the object to compare to
+     * @return - true if o is a key for the same cubes
+     */
+    public boolean equals(Object o){
+        if(!(o instanceof CubeKey)){
+            return false;
+        }
+        CubeKey other = (CubeKey)o;
+        return corners == other.corners && edges == other.edges;
+    }
+
+    public int hashCode(){
+        return (corners * 31) + Long.hashCode(edges * 0x9E3779B97F4A7C15L);
+    }
+
+    public String toString(){
+        return corners + ":" + edges + " (sym " + sym + (inverse ? ", inverse)" : ")");
+    }
+}
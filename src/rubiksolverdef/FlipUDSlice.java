@@ -15,51 +15,117 @@ package rubiksolverdef;
  * This class represent the tables for the FlipUDSlice Sym Coordinates
  * @author russfeld
  */
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.Serializable;
 import rubiksolver.RubikModel2;
+import rubiksolver.TableFile;
 
 public class FlipUDSlice implements Serializable {
 
+        //changes whenever the way the classes are numbered changes, so saved tables are built again
+        public static final int VERSION = 1;
+
         private transient RubikModel2 model;
         public int[][] FlipUDSliceToRaw;
+        //for each raw coordinate (UDSlice * 2048 + EdgeOri), its Sym Coordinate (class * 16 + sym)
+        public int[] RawToFlipUDSlice;
         public int size;
 
         /**
          * Calcultates the FlipUDSliceToRaw table
+         *
+         * The raw coordinates are visited in order, so the first one of each
+         * class that is reached is the smallest, which is the one the class
+         * is stored as. Applying the 16 symmetries to it then gives every other
+         * raw coordinate of the class at once, along with the symmetry that
+         * takes it back.
+         *
          * @param aModel - the RubikModel to use
          */
         public FlipUDSlice(RubikModel2 aModel){
-            System.out.print("Initializing FlipUDSlice: [" );
+            this(aModel, System.out);
+        }
+
+        /**
+         * This calculates the tables, printing the progress to the given stream
+         *
+         * @param aModel - the RubikModel to use
+         * @param log - where to print the progress
+         */
+        public FlipUDSlice(RubikModel2 aModel, PrintStream log){
+            log.print("Initializing FlipUDSlice: [" );
             model = aModel;
             FlipUDSliceToRaw = new int[64430][2];
             for(int x = 0; x < 64430; x++){
                 FlipUDSliceToRaw[x][0] = -1;
             }
+            RawToFlipUDSlice = new int[495 * 2048];
+            java.util.Arrays.fill(RawToFlipUDSlice, -1);
             size = 0;
-            CubieCube cc = new CubieCube(true);
             for(int i = 0; i < 495; i++){ //UDSliceCoord
-                cc.InvCoord(i);
                 for(int j = 0; j < 2048; j++){ //EdgeOriCoord
-                    cc.InvCoord(0, j);
-                    int min = model.UDSliceRawReduce(cc);
-                    int l;
-                    for(l = 0; l < size; l++){
-                        if(FlipUDSliceToRaw[l][0] == min){
-                            FlipUDSliceToRaw[l][1]++;
-                            break;
-                        }
+                    int raw = (i * 2048) + j;
+                    if(RawToFlipUDSlice[raw] >= 0){
+                        continue;
                     }
-                    if(FlipUDSliceToRaw[l][0] != min){
-                        FlipUDSliceToRaw[size][0] = min;
-                        FlipUDSliceToRaw[size][1] = 0;
-                        size++;
+                    FlipUDSliceToRaw[size][0] = raw;
+                    FlipUDSliceToRaw[size][1] = -1;
+                    for(int k = 0; k < 16; k++){
+                        //SthenSinv with symmetry k takes this one back to raw
+                        int coord = model.FlipUDSliceConj(raw, model.SymInvIndex[k]);
+                        if(RawToFlipUDSlice[coord] < 0){
+                            RawToFlipUDSlice[coord] = (size * 16) + k;
+                            FlipUDSliceToRaw[size][1]++;
+                        }
                     }
+                    size++;
                 }
                 if(i % 20 == 0){
-                    System.out.print("=");
+                    log.print("=");
                 }
             }
-            System.out.println("] Done! Size of table: " + size);
+            log.println("] Done! Size of table: " + size);
+        }
+
+        /**
+         * Reads the tables from a table file written by addTo
+         *
+         * @param aModel - the RubikModel to use
+         * @param file - the table file
+         * @throws IOException - if the file does not hold the tables
+         */
+        public FlipUDSlice(RubikModel2 aModel, TableFile file) throws IOException{
+            model = aModel;
+            file.expect("FlipUDSlice.version", VERSION);
+            FlipUDSliceToRaw = file.intTable("FlipUDSliceToRaw");
+            RawToFlipUDSlice = file.intArray("RawToFlipUDSlice");
+            size = FlipUDSliceToRaw.length;
+            if(size != 64430 || RawToFlipUDSlice.length != 495 * 2048){
+                throw new IOException("FlipUDSlice tables have the wrong size");
+            }
+        }
+
+        /**
+         * Adds the tables to a table file that is about to be written
+         *
+         * @param file - the table file
+         */
+        public void addTo(TableFile file){
+            file.put("FlipUDSlice.version", VERSION);
+            file.put("FlipUDSlice.classes", size);
+            file.add("FlipUDSliceToRaw", FlipUDSliceToRaw);
+            file.add("RawToFlipUDSlice", RawToFlipUDSlice);
+        }
+
+        /**
+         * Gets a checksum of the classes, which the tables built from this
+         * one record, so they can tell if the classes have changed since
+         *
+         * @return - the checksum of FlipUDSliceToRaw
+         */
+        public int checksum(){
+            return TableFile.checksum(FlipUDSliceToRaw);
         }
 
         /**
@@ -76,15 +142,6 @@ public class FlipUDSlice implements Serializable {
          * @return - the FlipUDSlice Coordinate
          */
         public int FlipUDSliceCoord(CubieCube cc){
-            int tempIdx = model.SymReduce(cc);
-            CubieCube tempC = model.SthenSinv(cc, tempIdx);
-            int temp = (model.UDSliceCoord(tempC) * 2048) + model.EdgeOriCoord(tempC.e);
-            for(int i = 0; i < size; i++){
-                if(FlipUDSliceToRaw[i][0] == temp){
-                    return i * 16 + tempIdx;
-                }
-            }
-            System.out.println("Error: Could not find UDSliceRawCoord: " + temp + " " + size + " " + model.UDSliceCoord(cc) + " " + model.EdgeOriCoord(cc.e));
-            return -1;
+            return RawToFlipUDSlice[(model.UDSliceCoord(cc) * 2048) + model.EdgeOriCoord(cc.e)];
         }
 }